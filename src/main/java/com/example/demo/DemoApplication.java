@@ -31,11 +31,11 @@ public class DemoApplication {
 
 		// Index flights data from data/jsons folder
 		String flightsJsonPath = "src/main/java/com/example/demo/data/jsons/flights.json";
-		vectorDB.createIndex("flights", flightsJsonPath);
+		vectorDB.openOrCreateIndex("flights", flightsJsonPath);
 		
 		// Index sightseeing data from data/docs folder
 		String sightseeingDocsPath = "src/main/java/com/example/demo/data/docs";
-		vectorDB.createIndex("sightseeing", sightseeingDocsPath);
+		vectorDB.openOrCreateIndex("sightseeing", sightseeingDocsPath);
 
 		// Get the service from the application context
 		ChatService chatService = context.getBean(ChatService.class);
@@ -0,0 +1,94 @@
+package com.example.demo.ai.core;
+
+/**
+ * Opt-in of one LLM call site to the {@link LlmResponseCache}. Responses are
+ * only shared between calls with the same endpoint name, and statistics are
+ * kept per endpoint.
+ */
+public class LlmCacheOptions {
+
+    private String endpoint;
+    private long ttlSeconds = 0;
+    private boolean semantic = false;
+    private double similarityThreshold = 0;
+    private String query;
+    private String context;
+
+    public LlmCacheOptions() {
+    }
+
+    public LlmCacheOptions(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public LlmCacheOptions(String endpoint, boolean semantic) {
+        this.endpoint = endpoint;
+        this.semantic = semantic;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * How long a response is served from the cache; 0 uses the configured default
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * Whether a prompt without an exact match may be answered with the response to a similar
+     * query over the same context; see {@link #forQuery}. Off by default: the default embedder
+     * ignores word order, so "Mumbai to Delhi" and "Delhi to Mumbai" look identical; enable it
+     * only where that cannot change the answer.
+     */
+    public boolean isSemantic() {
+        return semantic;
+    }
+
+    public void setSemantic(boolean semantic) {
+        this.semantic = semantic;
+    }
+
+    /**
+     * Minimum cosine similarity of prompt embeddings for a semantic hit; 0 uses the configured default
+     */
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    public void setSimilarityThreshold(double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    /**
+     * These options for one call whose prompt wraps the user's {@code query} and the retrieved
+     * {@code context} in a template. A semantic hit then needs a similar query and exactly the
+     * same context; without a query, only the exact prompt matches.
+     */
+    public LlmCacheOptions forQuery(String query, String context) {
+        LlmCacheOptions options = new LlmCacheOptions(endpoint, semantic);
+        options.ttlSeconds = ttlSeconds;
+        options.similarityThreshold = similarityThreshold;
+        options.query = query;
+        options.context = context;
+        return options;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getContext() {
+        return context;
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo.ai.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.vectordb.Embedder;
+import com.example.demo.vectordb.HashingEmbedder;
+import com.example.demo.vectordb.VectorKernels;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache of LLM responses in front of {@link SpringAIChatClient}. A prompt is
+ * looked up by its SHA-256 hash first; without an exact match, endpoints that
+ * opt in to semantic matching compare the embedding of the user's query with the
+ * cached queries over the same retrieved context, and the most similar one above the
+ * threshold answers instead. The template around the query is never embedded: it
+ * is mostly boilerplate, and would make questions about different places look alike.
+ * Entries expire after a per-endpoint TTL and are evicted by W-TinyLFU once the
+ * cached text exceeds its byte bound.
+ */
+@Component
+public class LlmResponseCache {
+
+    @Value("${llm.cache.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+
+    @Value("${llm.cache.similarity-threshold:0.95}")
+    private double similarityThreshold = 0.95;
+
+    /** Approximate bound on the cached prompt and response text */
+    @Value("${llm.cache.max-bytes:16777216}")
+    private long maxBytes = 16L * 1024 * 1024;
+
+    private Embedder embedder = new HashingEmbedder();
+    private volatile Cache<Key, Entry> responses = newCache();
+
+    /** Query embeddings of the cached entries, per endpoint, scanned for semantic hits */
+    private final Map<String, Map<Key, QueryVector>> vectors = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private record Key(String endpoint, String promptHash) {
+    }
+
+    private record Entry(String prompt, String response, QueryVector query, long ttlNanos) {
+    }
+
+    /** The embedded query of an entry, and the hash of the context it was asked over */
+    private record QueryVector(float[] vector, String contextHash) {
+    }
+
+    private static final class EndpointStats {
+        final LongAdder exactHits = new LongAdder();
+        final LongAdder semanticHits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder hitNanos = new LongAdder();
+        final LongAdder missNanos = new LongAdder();
+    }
+
+    /**
+     * Embed queries with the same model as the vector database when one is configured
+     */
+    @Autowired(required = false)
+    public void setEmbedder(Embedder embedder) {
+        this.embedder = embedder;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // Sized from configuration, which is only injected after construction
+        responses = newCache();
+    }
+
+    private Cache<Key, Entry> newCache() {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> 2 * (entry.prompt().length() + entry.response().length())
+                        + (entry.query() != null ? entry.query().vector().length * Float.BYTES : 0))
+                .expireAfter(new Expiry<Key, Entry>() {
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Run removal listeners on the calling thread, so a vector never outlives its entry for long
+                .executor(Runnable::run)
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (key != null && entry != null && entry.query() != null && cause != RemovalCause.REPLACED) {
+                        Map<Key, QueryVector> endpointVectors = vectors.get(key.endpoint());
+                        if (endpointVectors != null) {
+                            // Listeners run later; the key may hold a newer entry's vector by then
+                            endpointVectors.remove(key, entry.query());
+                        }
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The cached response to the prompt, or the result of {@code call}, which is then cached;
+     * with null options the call is never cached
+     */
+    public String get(LlmCacheOptions options, String prompt, Supplier<String> call) {
+        long start = System.nanoTime();
+        String cached = lookup(options, prompt);
+        if (cached != null) {
+            return cached;
+        }
+        String response = call.get();
+        put(options, prompt, response, start);
+        return response;
+    }
+
+    /**
+     * The cached response to the prompt, exact or semantic, or null on a miss
+     */
+    public String lookup(LlmCacheOptions options, String prompt) {
+        if (options == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        EndpointStats endpointStats = stats.computeIfAbsent(options.getEndpoint(), e -> new EndpointStats());
+
+        Entry exact = responses.getIfPresent(new Key(options.getEndpoint(), hash(prompt)));
+        if (exact != null && exact.prompt().equals(prompt)) {
+            endpointStats.exactHits.increment();
+            endpointStats.hitNanos.add(System.nanoTime() - start);
+            return exact.response();
+        }
+
+        if (isSemantic(options)) {
+            Entry similar = mostSimilar(options.getEndpoint(), queryVector(options), options.getSimilarityThreshold() > 0
+                    ? options.getSimilarityThreshold() : similarityThreshold);
+            if (similar != null) {
+                endpointStats.semanticHits.increment();
+                endpointStats.hitNanos.add(System.nanoTime() - start);
+                return similar.response();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cache the response to a prompt that missed, counting the miss with the time since {@code startNanos}
+     */
+    public void put(LlmCacheOptions options, String prompt, String response, long startNanos) {
+        if (options == null) {
+            return;
+        }
+        String endpoint = options.getEndpoint();
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+        endpointStats.misses.increment();
+        endpointStats.missNanos.add(System.nanoTime() - startNanos);
+        if (response == null) {
+            return;
+        }
+        Key key = new Key(endpoint, hash(prompt));
+        QueryVector query = isSemantic(options) ? queryVector(options) : null;
+        long ttl = options.getTtlSeconds() > 0 ? options.getTtlSeconds() : ttlSeconds;
+        // The vector goes in first: an entry evicted right after it is cached then always
+        // finds its vector to remove, instead of leaving an orphan behind
+        Map<Key, QueryVector> endpointVectors = vectors.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>());
+        if (query != null) {
+            endpointVectors.put(key, query);
+        } else {
+            endpointVectors.remove(key);
+        }
+        responses.put(key, new Entry(prompt, response, query, TimeUnit.SECONDS.toNanos(ttl)));
+    }
+
+    // Without the query apart from its template, only the exact prompt can be trusted to match
+    private static boolean isSemantic(LlmCacheOptions options) {
+        return options.isSemantic() && options.getQuery() != null;
+    }
+
+    private QueryVector queryVector(LlmCacheOptions options) {
+        float[] vector = embedder.embed(options.getQuery());
+        VectorKernels.normalize(vector);
+        return new QueryVector(vector, hash(options.getContext() != null ? options.getContext() : ""));
+    }
+
+    private Entry mostSimilar(String endpoint, QueryVector query, double threshold) {
+        Map<Key, QueryVector> endpointVectors = vectors.get(endpoint);
+        if (endpointVectors == null) {
+            return null;
+        }
+        float[] vector = query.vector();
+        Key best = null;
+        float bestScore = (float) threshold;
+        for (Map.Entry<Key, QueryVector> candidate : endpointVectors.entrySet()) {
+            // Only an answer over the same retrieved context can stand in for this one
+            if (!candidate.getValue().contextHash().equals(query.contextHash())) {
+                continue;
+            }
+            float[] cached = candidate.getValue().vector();
+            if (cached.length == vector.length) {
+                float score = VectorKernels.dot(cached, 0, vector, vector.length);
+                if (score >= bestScore) {
+                    bestScore = score;
+                    best = candidate.getKey();
+                }
+            }
+        }
+        // The entry may have expired since its vector was scanned
+        return best != null ? responses.getIfPresent(best) : null;
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Exact and semantic hits, misses, hit rate and average latencies per endpoint, plus the
+     * size and evictions of the whole cache
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> endpoints = new TreeMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            long exactHits = endpointStats.exactHits.sum();
+            long semanticHits = endpointStats.semanticHits.sum();
+            long hits = exactHits + semanticHits;
+            long misses = endpointStats.misses.sum();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("exactHits", exactHits);
+            values.put("semanticHits", semanticHits);
+            values.put("misses", misses);
+            values.put("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+            values.put("avgHitMicros", hits == 0 ? 0 : endpointStats.hitNanos.sum() / 1_000.0 / hits);
+            values.put("avgMissMs", misses == 0 ? 0 : endpointStats.missNanos.sum() / 1_000_000.0 / misses);
+            Map<Key, QueryVector> endpointVectors = vectors.get(endpoint);
+            values.put("semanticEntries", endpointVectors != null ? endpointVectors.size() : 0);
+            endpoints.put(endpoint, values);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", responses.estimatedSize());
+        result.put("weightBytes", responses.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        result.put("maxBytes", maxBytes);
+        result.put("evictions", responses.stats().evictionCount());
+        result.put("ttlSeconds", ttlSeconds);
+        result.put("similarityThreshold", similarityThreshold);
+        result.put("endpoints", endpoints);
+        return result;
+    }
+}
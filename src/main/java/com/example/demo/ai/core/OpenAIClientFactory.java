@@ -1,41 +1,110 @@
 package com.example.demo.ai.core;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
 import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.azure.openai.AzureOpenAiChatOptions;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
-import org.springframework.stereotype.Component;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import reactor.core.publisher.Mono;
 
-@Component
+/**
+ * Builds the Azure OpenAI chat models on one pooled HTTP client. Every model,
+ * one per deployment, shares the connection pool, and the pool is warmed up
+ * when the application is ready so the first LLM call does not pay for TLS.
+ */
+@Configuration
 public class OpenAIClientFactory {
 
-    @Autowired
-    private OpenAIConfig openAIConfig;
+    private final OpenAIConfig openAIConfig;
+    private final OpenAIConnectionPool connectionPool;
+    private final HttpClient httpClient;
+    private final Map<String, AzureOpenAiChatModel> chatModels = new ConcurrentHashMap<>();
+
+    public OpenAIClientFactory(OpenAIConfig openAIConfig) {
+        this.openAIConfig = openAIConfig;
+        this.connectionPool = new OpenAIConnectionPool(openAIConfig);
+        this.httpClient = new NettyAsyncHttpClientBuilder()
+                .connectionProvider(connectionPool.getConnectionProvider())
+                .connectTimeout(Duration.ofMillis(openAIConfig.getConnectTimeoutMs()))
+                .responseTimeout(Duration.ofSeconds(openAIConfig.getResponseTimeoutSeconds()))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public OpenAIConnectionPool openAIConnectionPool() {
+        return connectionPool;
+    }
 
     @Bean
     public AzureOpenAiChatModel chatModel() {
+        return chatModelFor(openAIConfig.getModel());
+    }
 
-        OpenAIClientBuilder openAIClientBuilder = createClientBuilder();
-
-        AzureOpenAiChatOptions options = AzureOpenAiChatOptions.builder()
-                // In Azure, this should be the *deployment name* from Azure AI Studio
-                .deploymentName(openAIConfig.getModel()) 
-                .temperature(openAIConfig.getTemperature())
-                .maxTokens(openAIConfig.getMaxTokens())
-                .topP(openAIConfig.getTopP())
-                .build();
+    /**
+     * The chat model of a deployment, built once and reused for every request
+     */
+    public AzureOpenAiChatModel chatModelFor(String deploymentName) {
+        return chatModels.computeIfAbsent(deploymentName, deployment -> {
+            AzureOpenAiChatOptions options = AzureOpenAiChatOptions.builder()
+                    // In Azure, this should be the *deployment name* from Azure AI Studio
+                    .deploymentName(deployment)
+                    .temperature(openAIConfig.getTemperature())
+                    .maxTokens(openAIConfig.getMaxTokens())
+                    .topP(openAIConfig.getTopP())
+                    .build();
 
-        return AzureOpenAiChatModel.builder()
-                .openAIClientBuilder(openAIClientBuilder)
-                .defaultOptions(options)
-                .build();
+            return AzureOpenAiChatModel.builder()
+                    .openAIClientBuilder(createClientBuilder())
+                    .defaultOptions(options)
+                    .build();
+        });
     }
 
     public OpenAIClientBuilder createClientBuilder() {
         return new OpenAIClientBuilder()
                 .endpoint(openAIConfig.getEndpoint())
-                .credential(new AzureKeyCredential(openAIConfig.getApiKey()));               
+                .credential(new AzureKeyCredential(openAIConfig.getApiKey()))
+                .httpClient(httpClient);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!openAIConfig.isWarmUp()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        warmUp().subscribe(
+                status -> System.out.println("🔥 Warmed up Azure OpenAI connection to " + openAIConfig.getEndpoint() +
+                                           " in " + (System.currentTimeMillis() - start) + "ms (HTTP " + status + ")"),
+                error -> System.err.println("❌ Azure OpenAI warm-up failed: " + error.getMessage()));
+    }
+
+    /**
+     * Open a pooled connection to the endpoint with a request that costs no tokens;
+     * emits the HTTP status, which is irrelevant as long as the connection stays open
+     */
+    public Mono<Integer> warmUp() {
+        return httpClient.send(new HttpRequest(HttpMethod.GET, openAIConfig.getEndpoint()))
+                // Read the body and close the response before emitting, so the connection is
+                // back in the pool by the time a caller sends its first request
+                .flatMap(response -> Mono.using(() -> response,
+                        r -> r.getBodyAsByteArray()
+                                .defaultIfEmpty(new byte[0])
+                                .map(body -> r.getStatusCode()),
+                        HttpResponse::close))
+                .timeout(Duration.ofMillis(openAIConfig.getConnectTimeoutMs()));
     }
-}
\ No newline at end of file
+}
@@ -30,6 +30,31 @@ public class OpenAIConfig {
     @Value("${spring.ai.azure.openai.chat.options.topP}")
     private Double topP;
 
+    // HTTP connection pool shared by all chat models
+    @Value("${openai.http.max-connections:50}")
+    private int maxConnections = 50;
+
+    @Value("${openai.http.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount = 200;
+
+    @Value("${openai.http.pending-acquire-timeout-ms:45000}")
+    private long pendingAcquireTimeoutMs = 45000;
+
+    @Value("${openai.http.max-idle-time-seconds:60}")
+    private long maxIdleTimeSeconds = 60;
+
+    @Value("${openai.http.max-life-time-seconds:600}")
+    private long maxLifeTimeSeconds = 600;
+
+    @Value("${openai.http.connect-timeout-ms:10000}")
+    private long connectTimeoutMs = 10000;
+
+    @Value("${openai.http.response-timeout-seconds:120}")
+    private long responseTimeoutSeconds = 120;
+
+    @Value("${openai.http.warm-up:true}")
+    private boolean warmUp = true;
+
     public String getEndpoint() {
         return endpoint;
     }
@@ -62,4 +87,36 @@ public class OpenAIConfig {
         return topP != null ? topP : 0.0;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public long getPendingAcquireTimeoutMs() {
+        return pendingAcquireTimeoutMs;
+    }
+
+    public long getMaxIdleTimeSeconds() {
+        return maxIdleTimeSeconds;
+    }
+
+    public long getMaxLifeTimeSeconds() {
+        return maxLifeTimeSeconds;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public long getResponseTimeoutSeconds() {
+        return responseTimeoutSeconds;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.example.demo.ai.core;
+
+import java.io.Closeable;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The HTTP connection pool shared by every Azure OpenAI request. Connections
+ * are kept alive between requests, so TLS is negotiated once per connection
+ * instead of once per LLM call. Also receives the pool's gauges from Reactor
+ * Netty, one set per remote address.
+ */
+public class OpenAIConnectionPool implements ConnectionProvider.MeterRegistrar, Closeable {
+
+    private final ConnectionProvider connectionProvider;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    public OpenAIConnectionPool(OpenAIConfig config) {
+        this.connectionProvider = ConnectionProvider.builder("azure-openai")
+                .maxConnections(config.getMaxConnections())
+                .pendingAcquireMaxCount(config.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(config.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofSeconds(config.getMaxIdleTimeSeconds()))
+                .maxLifeTime(Duration.ofSeconds(config.getMaxLifeTimeSeconds()))
+                // Close idle and expired connections even when no request comes to notice them
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true, () -> this)
+                .build();
+    }
+
+    public ConnectionProvider getConnectionProvider() {
+        return connectionProvider;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(remoteAddress.toString(), metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(remoteAddress.toString());
+    }
+
+    /**
+     * Active (acquired), idle, allocated and pending-acquire counts, in total and per remote address
+     */
+    public Map<String, Object> getMetrics() {
+        int active = 0;
+        int idle = 0;
+        int allocated = 0;
+        int pending = 0;
+        Map<String, Object> remotes = new LinkedHashMap<>();
+        for (Map.Entry<String, ConnectionPoolMetrics> pool : pools.entrySet()) {
+            ConnectionPoolMetrics metrics = pool.getValue();
+            active += metrics.acquiredSize();
+            idle += metrics.idleSize();
+            allocated += metrics.allocatedSize();
+            pending += metrics.pendingAcquireSize();
+            remotes.put(pool.getKey(), Map.of(
+                    "active", metrics.acquiredSize(),
+                    "idle", metrics.idleSize(),
+                    "allocated", metrics.allocatedSize(),
+                    "pendingAcquires", metrics.pendingAcquireSize(),
+                    "maxConnections", metrics.maxAllocatedSize(),
+                    "maxPendingAcquires", metrics.maxPendingAcquireSize()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("active", active);
+        result.put("idle", idle);
+        result.put("allocated", allocated);
+        result.put("pendingAcquires", pending);
+        result.put("remotes", remotes);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.dispose();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.ai.core;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.chat.client.ChatClient;
@@ -8,28 +9,85 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.stereotype.Service;
 
+import reactor.core.publisher.Flux;
+
 @Service
 public class SpringAIChatClient {
 
-    private final OpenAIClientFactory chatClientFactory;
+    // Built once on the shared, pooled chat model
+    private final AzureOpenAiChatModel chatModel;
+    private final ChatClient chatClient;
+    private final LlmResponseCache responseCache;
 
-    public SpringAIChatClient(OpenAIClientFactory chatClientFactory) {
-        this.chatClientFactory = chatClientFactory;
+    public SpringAIChatClient(OpenAIClientFactory chatClientFactory, LlmResponseCache responseCache) {
+        this.chatModel = chatClientFactory.chatModel();
+        this.chatClient = ChatClient.create(chatModel);
+        this.responseCache = responseCache;
     }
 
     public AzureOpenAiChatModel getChatModel() {
-        return chatClientFactory.chatModel();
+        return chatModel;
     }
 
     public String ask(String userInput) {
-        return ChatClient.create(chatClientFactory.chatModel()).prompt()
+        return chatClient.prompt()
                 .user(userInput)
                 .call()
                 .content();
     }
 
+    /**
+     * Like {@link #ask(String)}, answered from the response cache when the call site opts in
+     */
+    public String ask(String userInput, LlmCacheOptions cacheOptions) {
+        return responseCache.get(cacheOptions, userInput, () -> ask(userInput));
+    }
+
+    /**
+     * The content of the model's reply to a prompt, answered from the response cache when
+     * the call site opts in; the prompt's messages are the cache key
+     */
+    public String content(Prompt prompt, LlmCacheOptions cacheOptions) {
+        return responseCache.get(cacheOptions, prompt.getContents(),
+                () -> chatClient.prompt(prompt).call().content());
+    }
+
     public String prompt(Prompt prompt) {
-        List<Generation> generations = chatClientFactory.chatModel().call(prompt).getResults();
+        List<Generation> generations = chatModel.call(prompt).getResults();
         return generations.get(0).toString();
     }
+
+    /**
+     * The reply to a user message as it is generated; cancelling the subscription aborts the request
+     */
+    public Flux<String> stream(String userInput, LlmCacheOptions cacheOptions) {
+        return cachedStream(cacheOptions, userInput, () -> chatClient.prompt()
+                .user(userInput)
+                .stream()
+                .content());
+    }
+
+    /**
+     * The reply to a prompt as it is generated; cancelling the subscription aborts the request
+     */
+    public Flux<String> stream(Prompt prompt, LlmCacheOptions cacheOptions) {
+        return cachedStream(cacheOptions, prompt.getContents(), () -> chatClient.prompt(prompt)
+                .stream()
+                .content());
+    }
+
+    // A cached reply arrives as a single token; a generated one is cached only once it is complete
+    private Flux<String> cachedStream(LlmCacheOptions cacheOptions, String cacheText, Supplier<Flux<String>> generate) {
+        return Flux.defer(() -> {
+            String cached = responseCache.lookup(cacheOptions, cacheText);
+            if (cached != null) {
+                return Flux.just(cached);
+            }
+            long start = System.nanoTime();
+            StringBuilder content = new StringBuilder();
+            return generate.get()
+                    .doOnNext(content::append)
+                    .doOnComplete(() -> responseCache.put(cacheOptions, cacheText, content.toString(), start));
+        });
+    }
 }
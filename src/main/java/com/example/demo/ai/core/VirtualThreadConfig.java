@@ -0,0 +1,102 @@
+package com.example.demo.ai.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Virtual-thread execution for LLM-bound work. With
+ * {@code spring.threads.virtual.enabled=true} on Java 21+, Spring Boot runs
+ * Tomcat requests on virtual threads, and {@link #llmExecutor()} starts one
+ * virtual thread per outbound LLM or HTTP call, so a request blocked on the
+ * model holds no platform thread. The application is built for Java 17, so
+ * virtual threads are looked up reflectively; without them both fall back to
+ * platform threads.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled = false;
+
+    /** Size of the platform-thread pool for LLM calls when virtual threads are off */
+    @Value("${llm.executor.platform-threads:64}")
+    private int platformThreads = 64;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatMaxThreads = 200;
+
+    /**
+     * Runs blocking LLM and HTTP calls: a virtual thread per task, or a bounded platform pool
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService llmExecutor() {
+        if (isVirtual()) {
+            return newVirtualThreadPerTaskExecutor("llm-");
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, task -> {
+            Thread thread = new Thread(task, "llm-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Whether requests and LLM calls run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtualThreadsEnabled && isSupported();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreading() {
+        if (isVirtual()) {
+            System.out.println("🧵 Requests and LLM calls run on virtual threads");
+        } else if (virtualThreadsEnabled) {
+            System.out.println("⚠️ Virtual threads need Java 21+, running on platform threads (Java " +
+                               Runtime.version().feature() + ", " + tomcatMaxThreads + " request threads, " +
+                               platformThreads + " LLM threads)");
+        } else {
+            System.out.println("🧵 Requests and LLM calls run on platform threads (" + tomcatMaxThreads +
+                               " request threads, " + platformThreads + " LLM threads)");
+        }
+    }
+
+    /**
+     * Whether the running JVM has virtual threads (Java 21+)
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * An executor that starts a new virtual thread, named with the prefix and a counter, per task
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available on Java " +
+                                            Runtime.version().feature(), e);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.demo.controller;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.demo.ai.core.LlmResponseCache;
+import com.example.demo.ai.core.OpenAIConnectionPool;
 import com.example.demo.service.ChatService;
 
 import java.util.HashMap;
@@ -14,8 +18,16 @@ import java.util.Map;
 public class ChatController {
 
     private final ChatService chatService;
-    public ChatController(ChatService chatService) {
+    private final OpenAIConnectionPool connectionPool;
+    private final LlmResponseCache responseCache;
+    private final SseStreams sseStreams;
+
+    public ChatController(ChatService chatService, OpenAIConnectionPool connectionPool,
+            LlmResponseCache responseCache, SseStreams sseStreams) {
         this.chatService = chatService;
+        this.connectionPool = connectionPool;
+        this.responseCache = responseCache;
+        this.sseStreams = sseStreams;
     }
 
     @GetMapping("/message")
@@ -39,4 +51,48 @@ public class ChatController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * The AI response as Server-Sent Events, one per token as it is generated
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@RequestParam String prompt) {
+        return sseStreams.stream("chat", chatService.streamMessage(prompt));
+    }
+
+    /**
+     * Active, idle and pending connections of the pool shared by all Azure OpenAI calls
+     */
+    @GetMapping("/connection-pool")
+    public ResponseEntity<Map<String, Object>> getConnectionPool() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.put("success", true);
+            response.put("pool", connectionPool.getMetrics());
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Exact and semantic hit rates of the LLM response cache, per endpoint
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            response.put("success", true);
+            response.put("cache", responseCache.getStats());
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+}
@@ -3,8 +3,10 @@ package com.example.demo.controller;
 import com.example.demo.entities.Sightseeing;
 import com.example.demo.entities.SightseeingInfo;
 import com.example.demo.service.SightseeingService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,9 +16,11 @@ import java.util.List;
 public class SightseeingController {
 
     private final SightseeingService sightseeingService;
+    private final SseStreams sseStreams;
 
-    public SightseeingController(SightseeingService sightseeingService) {
+    public SightseeingController(SightseeingService sightseeingService, SseStreams sseStreams) {
         this.sightseeingService = sightseeingService;
+        this.sseStreams = sseStreams;
     }
 
     @GetMapping("/search")
@@ -31,6 +35,20 @@ public class SightseeingController {
         }
     }
 
+    /**
+     * The LLM's sightseeing answer as Server-Sent Events, one per token as it is generated
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSightseeing(
+            @RequestParam(required = true) String prompt) {
+        try {
+            return ResponseEntity.ok(sseStreams.stream("sightseeing", sightseeingService.streamSightseeing(prompt)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/search-with-flights")
     public ResponseEntity<List<SightseeingInfo>> searchWithFlights(
             @RequestParam(required = true) String prompt) {
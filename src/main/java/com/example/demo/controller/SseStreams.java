@@ -0,0 +1,87 @@
+package com.example.demo.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sends streamed LLM tokens to the client as Server-Sent Events: one
+ * {@code token} event per token, then {@code done}, or {@code error} if the
+ * generation fails. When the client goes away, the subscription is cancelled,
+ * which aborts the request to the model so it stops generating.
+ */
+@Component
+public class SseStreams {
+
+    @Value("${llm.stream.timeout-ms:180000}")
+    private long timeoutMs = 180000;
+
+    // Sends block on the client connection, so they run off the HTTP client's event loop
+    private final Scheduler sendScheduler;
+
+    public SseStreams(ExecutorService llmExecutor) {
+        this.sendScheduler = Schedulers.fromExecutorService(llmExecutor);
+    }
+
+    public SseEmitter stream(String name, Flux<String> tokens) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Disposable subscription = tokens
+                .doOnCancel(() -> System.out.println("🛑 Cancelled " + name + " stream, client went away"))
+                .publishOn(sendScheduler)
+                // A failed send cancels the upstream generation
+                .doOnNext(token -> send(emitter, SseEmitter.event()
+                        .name("token")
+                        // JSON keeps the leading spaces and newlines of tokens intact
+                        .data(Map.of("content", token), MediaType.APPLICATION_JSON)))
+                .subscribe(
+                        token -> { },
+                        error -> {
+                            if (error instanceof UncheckedIOException) {
+                                emitter.complete();
+                                return;
+                            }
+                            System.err.println("❌ " + name + " stream failed: " + error.getMessage());
+                            try {
+                                emitter.send(SseEmitter.event().name("error").data(String.valueOf(error.getMessage())));
+                                emitter.complete();
+                            } catch (Exception e) {
+                                emitter.completeWithError(e);
+                            }
+                        },
+                        () -> {
+                            try {
+                                emitter.send(SseEmitter.event().name("done").data(""));
+                                emitter.complete();
+                            } catch (Exception e) {
+                                emitter.completeWithError(e);
+                            }
+                        });
+
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            // Already completed, e.g. timed out
+            throw new UncheckedIOException(new IOException(e.getMessage(), e));
+        }
+    }
+}
@@ -1,38 +1,146 @@
 package com.example.demo.controller;
 
+import com.example.demo.vectordb.AnalyzerStage;
+import com.example.demo.vectordb.ChunkStorageType;
+import com.example.demo.vectordb.ChunkingStrategy;
 import com.example.demo.vectordb.DemoVectorDB;
+import com.example.demo.vectordb.IndexOptions;
+import com.example.demo.vectordb.MultiSearchResult;
+import com.example.demo.vectordb.QuantizationType;
+import com.example.demo.vectordb.SearchMode;
+import com.example.demo.vectordb.SearchOptions;
 import com.example.demo.vectordb.SearchResult;
+import com.example.demo.vectordb.VectorIndexType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @RestController
 @RequestMapping("/api/vectordb")
 @CrossOrigin(origins = "*")
 public class VectorDBController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // Queued after the last result of a batch
+    private static final Map<String, Object> END_OF_BATCH = new LinkedHashMap<>();
+
     private final DemoVectorDB vectorDB;
+    private final ObjectMapper objectMapper;
 
-    public VectorDBController(DemoVectorDB vectorDB) {
+    public VectorDBController(DemoVectorDB vectorDB, ObjectMapper objectMapper) {
         this.vectorDB = vectorDB;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/create-index")
     public ResponseEntity<Map<String, Object>> createIndex(
             @RequestParam String indexName,
-            @RequestParam String dataPath) {
+            @RequestParam String dataPath,
+            @RequestParam(defaultValue = "FLAT") String vectorIndex,
+            @RequestParam(defaultValue = "16") int hnswM,
+            @RequestParam(defaultValue = "100") int hnswEfConstruction,
+            @RequestParam(defaultValue = "50") int hnswEfSearch,
+            @RequestParam(defaultValue = "NONE") String quantization,
+            @RequestParam(defaultValue = "32") int pqSubspaces,
+            @RequestParam(defaultValue = "4") int rescoreFactor,
+            @RequestParam(defaultValue = "false") boolean watch,
+            @RequestParam(defaultValue = "1") int shards,
+            @RequestParam(required = false) List<String> analyzer,
+            @RequestParam(defaultValue = "STRUCTURED") String chunking,
+            @RequestParam(defaultValue = "256") int chunkTokens,
+            @RequestParam(defaultValue = "32") int chunkOverlapTokens,
+            @RequestParam(defaultValue = "OBJECTS") String chunkStorage) {
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            vectorDB.createIndex(indexName, dataPath);
+            IndexOptions options = new IndexOptions();
+            options.setVectorIndexType(VectorIndexType.valueOf(vectorIndex.toUpperCase()));
+            options.setHnswM(hnswM);
+            options.setHnswEfConstruction(hnswEfConstruction);
+            options.setHnswEfSearch(hnswEfSearch);
+            options.setQuantization(QuantizationType.valueOf(quantization.toUpperCase()));
+            options.setPqSubspaces(pqSubspaces);
+            options.setRescoreFactor(rescoreFactor);
+            options.setWatch(watch);
+            options.setShardCount(shards);
+            options.setChunking(ChunkingStrategy.valueOf(chunking.toUpperCase()));
+            options.setChunkTokens(chunkTokens);
+            options.setChunkOverlapTokens(chunkOverlapTokens);
+            options.setChunkStorage(ChunkStorageType.valueOf(chunkStorage.toUpperCase()));
+            if (analyzer != null) {
+                // Comma-separated AnalyzerStage names; an empty value only splits tokens
+                options.setAnalyzer(analyzer.stream()
+                        .filter(stage -> !stage.isBlank())
+                        .map(stage -> AnalyzerStage.valueOf(stage.trim().toUpperCase()))
+                        .toList());
+            }
+            
+            Map<String, Object> build = vectorDB.createIndex(indexName, dataPath, options);
             response.put("success", true);
             response.put("message", "Index '" + indexName + "' created successfully");
             response.put("indexName", indexName);
             response.put("dataPath", dataPath);
+            response.put("options", options);
+            response.put("build", build);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/refresh-index")
+    public ResponseEntity<Map<String, Object>> refreshIndex(@RequestParam String indexName) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Map<String, Object> build = vectorDB.refreshIndex(indexName);
+            
+            if (build.containsKey("error")) {
+                response.put("success", false);
+                response.put("error", build.get("error"));
+            } else {
+                response.put("success", true);
+                response.put("indexName", indexName);
+                response.put("build", build);
+            }
+            
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/watch")
+    public ResponseEntity<Map<String, Object>> watchIndex(
+            @RequestParam String indexName,
+            @RequestParam(defaultValue = "true") boolean enabled) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            vectorDB.setWatching(indexName, enabled);
+            response.put("success", true);
+            response.put("indexName", indexName);
+            response.put("watching", vectorDB.isWatching(indexName));
+            
         } catch (Exception e) {
             response.put("success", false);
             response.put("error", e.getMessage());
@@ -44,12 +152,112 @@ public class VectorDBController {
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> search(
             @RequestParam String indexName,
-            @RequestParam String query) {
+            @RequestParam String query,
+            @RequestParam(defaultValue = "KEYWORD") String mode,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) Float lexicalWeight,
+            @RequestParam(required = false) Float vectorWeight,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) String cursor) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            SearchMode searchMode = SearchMode.valueOf(mode.toUpperCase());
+            SearchOptions options = new SearchOptions(k);
+            options.setFilter(filter);
+            options.setCursor(cursor);
+            options.setPaged(true);
+            
+            SearchResult result;
+            if (searchMode == SearchMode.HYBRID && (lexicalWeight != null || vectorWeight != null)) {
+                result = vectorDB.searchHybrid(indexName, query, options,
+                        lexicalWeight != null ? lexicalWeight : vectorDB.getHybridLexicalWeight(),
+                        vectorWeight != null ? vectorWeight : vectorDB.getHybridVectorWeight());
+            } else {
+                result = vectorDB.search(indexName, query, searchMode, options);
+            }
+            
+            response.put("success", true);
+            response.put("searchResult", result);
+            response.put("contentSummary", result.getContentSummary());
+            
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Run a JSON array of queries against one index and stream one NDJSON line per query,
+     * in the order the queries finish, each tagged with its position in the array
+     */
+    @PostMapping(value = "/search-batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> searchBatch(
+            @RequestParam String indexName,
+            @RequestParam(defaultValue = "KEYWORD") String mode,
+            @RequestBody List<String> queries) {
+        
+        SearchMode searchMode = SearchMode.valueOf(mode.toUpperCase());
+        StreamingResponseBody body = output -> {
+            // Batch workers only queue their results; this thread does every blocking write
+            BlockingQueue<Map<String, Object>> lines = new LinkedBlockingQueue<>();
+            CompletableFuture<Void> batch = vectorDB.searchBatchAsync(indexName, queries, searchMode,
+                    (queryIndex, result) -> {
+                        Map<String, Object> line = new LinkedHashMap<>();
+                        line.put("queryIndex", queryIndex);
+                        line.put("query", result.getQuery());
+                        line.put("totalResults", result.getTotalResults());
+                        line.put("searchTimeMs", result.getSearchTimeMs());
+                        line.put("hits", result.getHits());
+                        line.put("results", result.getResults());
+                        lines.add(line);
+                    });
+            batch.whenComplete((done, error) -> lines.add(END_OF_BATCH));
+            
+            try {
+                for (Map<String, Object> line = lines.take(); line != END_OF_BATCH; line = lines.take()) {
+                    writeLine(output, line);
+                }
+                Throwable error = batch.handle((done, e) -> e).join();
+                if (error != null) {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("success", false);
+                    line.put("error", error.getMessage());
+                    writeLine(output, line);
+                }
+            } catch (IOException e) {
+                // The client went away: stop scoring queries nobody will read
+                batch.cancel(true);
+                System.out.println("🛑 Cancelled batch of " + queries.size() + " queries, client went away");
+            } catch (InterruptedException e) {
+                batch.cancel(true);
+                Thread.currentThread().interrupt();
+            }
+        };
+        
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream output, Map<String, Object> line) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(line));
+        output.write('\n');
+        output.flush();
+    }
+
+    @GetMapping("/search-multi")
+    public ResponseEntity<Map<String, Object>> searchMulti(
+            @RequestParam Set<String> indexNames,
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "BM25") String mode) {
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            SearchResult result = vectorDB.search(indexName, query);
+            MultiSearchResult result = vectorDB.searchAll(indexNames, query, k, SearchMode.valueOf(mode.toUpperCase()));
             
             response.put("success", true);
             response.put("searchResult", result);
@@ -114,12 +322,17 @@ public class VectorDBController {
     @GetMapping("/demo-search")
     public ResponseEntity<Map<String, Object>> demoSearch(
             @RequestParam(defaultValue = "sample_flights") String indexName,
-            @RequestParam(defaultValue = "New York") String query) {
+            @RequestParam(defaultValue = "New York") String query,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) String cursor) {
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            SearchResult result = vectorDB.search(indexName, query);
+            SearchOptions options = new SearchOptions(k);
+            options.setCursor(cursor);
+            options.setPaged(true);
+            SearchResult result = vectorDB.search(indexName, query, SearchMode.KEYWORD, options);
             
             response.put("success", true);
             response.put("message", "Demo search completed");
@@ -146,6 +359,7 @@ public class VectorDBController {
             response.put("totalIndexes", indexNames.size());
             response.put("availableIndexes", indexNames);
             response.put("instance", DemoVectorDB.getInstance() != null ? "Active" : "Inactive");
+            response.put("queryCache", vectorDB.getQueryCacheStats());
             
         } catch (Exception e) {
             response.put("success", false);
@@ -1,21 +1,31 @@
 package com.example.demo.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.ai.core.LlmCacheOptions;
 import com.example.demo.ai.core.SpringAIChatClient;
 
+import reactor.core.publisher.Flux;
+
 @Service
 public class ChatService {
 
-    @Autowired
-    //private OpenAIClientFactory openAIClientFactory;
+    private static final LlmCacheOptions MESSAGE_CACHE = new LlmCacheOptions("/api/chat/message");
+
     private final SpringAIChatClient springAIChatClient;
 
     public ChatService(SpringAIChatClient springAIChatClient) {
         this.springAIChatClient = springAIChatClient;
     }
     public String sendMessage(String message) {
-        return springAIChatClient.ask(message);
+        return sendMessage(message, MESSAGE_CACHE);
+    }
+
+    public String sendMessage(String message, LlmCacheOptions cacheOptions) {
+        return springAIChatClient.ask(message, cacheOptions);
+    }
+
+    public Flux<String> streamMessage(String message) {
+        return springAIChatClient.stream(message, MESSAGE_CACHE);
     }
-} 
+}
@@ -5,25 +5,38 @@ import com.example.demo.ai.templates.FlightPromptTemplate;
 import com.example.demo.entities.Flight;
 import com.example.demo.entities.BookedFlight;
 import com.example.demo.vectordb.DemoVectorDB;
+import com.example.demo.vectordb.SearchMode;
+import com.example.demo.vectordb.SearchOptions;
 import com.example.demo.vectordb.SearchResult;
 import com.example.demo.vectordb.DocumentChunk;
 
 import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
 public class FlightAIService {
 
+    // Top-ranked chunks passed to the LLM as context
+    private static final int MAX_CONTEXT_CHUNKS = 8;
+
+    // BM25 by default; HYBRID adds embedding recall for loosely worded queries
+    @Value("${flights.search.mode:BM25}")
+    private SearchMode searchMode = SearchMode.BM25;
+
     private final SpringAIChatClient chatClient;
     private final FlightPromptTemplate promptService;
     private final DemoVectorDB vectorDB;
     private final List<BookedFlight> bookedFlights = new ArrayList<>();
+    // Not synchronized, so a virtual thread waiting for the lock does not pin its carrier
+    private final ReentrantLock bookingsLock = new ReentrantLock();
 
     public FlightAIService(SpringAIChatClient chatClient, FlightPromptTemplate promptService, DemoVectorDB vectorDB) {
         this.chatClient = chatClient;
@@ -52,11 +65,10 @@ public class FlightAIService {
             query = "flight";
         }
 
-        SearchResult flightResults = vectorDB.search("flights", query);
+        SearchResult flightResults = vectorDB.search("flights", query, searchMode, new SearchOptions(MAX_CONTEXT_CHUNKS));
 
         // Extract relevant flight data
         String flightContext = flightResults.getResults().stream()
-                .limit(20)
                 .map(DocumentChunk::getContent)
                 .collect(Collectors.joining("\n"));
 
@@ -79,9 +91,16 @@ public class FlightAIService {
         BookedFlight bookedFlight = new BookedFlight(outboundFlightNo, returnFlightNo != null ? returnFlightNo : "");
 
         // Store in memory
-        bookedFlights.add(bookedFlight);
+        int totalBookings;
+        bookingsLock.lock();
+        try {
+            bookedFlights.add(bookedFlight);
+            totalBookings = bookedFlights.size();
+        } finally {
+            bookingsLock.unlock();
+        }
 
-        System.out.println("✅ Flight booked! Total bookings: " + bookedFlights.size());
+        System.out.println("✅ Flight booked! Total bookings: " + totalBookings);
         System.out.println("   Outbound: " + outboundFlightNo);
         System.out.println("   Return: " + (returnFlightNo != null ? returnFlightNo : "None"));
         System.out.println("   Passenger: " + passengerInfo);
@@ -90,6 +109,11 @@ public class FlightAIService {
     }
 
     public List<BookedFlight> getAllBookedFlights() {
-        return new ArrayList<>(bookedFlights);
+        bookingsLock.lock();
+        try {
+            return new ArrayList<>(bookedFlights);
+        } finally {
+            bookingsLock.unlock();
+        }
     }
 }
\ No newline at end of file
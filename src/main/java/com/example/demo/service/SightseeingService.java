@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.ai.core.LlmCacheOptions;
+import com.example.demo.ai.core.SpringAIChatClient;
 import com.example.demo.ai.converters.SightseeingStructuredOutputConverter;
 import com.example.demo.ai.converters.SightseeingWithFlightsConverter;
 import com.example.demo.ai.templates.SightseeingPromptTemplate;
@@ -7,60 +9,135 @@ import com.example.demo.entities.Flight;
 import com.example.demo.entities.Sightseeing;
 import com.example.demo.entities.SightseeingInfo;
 import com.example.demo.vectordb.DemoVectorDB;
+import com.example.demo.vectordb.SearchMode;
+import com.example.demo.vectordb.SearchOptions;
 import com.example.demo.vectordb.SearchResult;
 import com.example.demo.vectordb.DocumentChunk;
 
-import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import reactor.core.publisher.Flux;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
 public class SightseeingService {
 
-    private final AzureOpenAiChatModel chatModel;
+    // Top-ranked chunks passed to the LLM as context
+    private static final int MAX_CONTEXT_CHUNKS = 5;
+
+    // BM25 by default; HYBRID adds embedding recall for loosely worded queries
+    @Value("${sightseeing.search.mode:BM25}")
+    private SearchMode searchMode = SearchMode.BM25;
+
+    // LLM responses are cached per endpoint; the same question over the same context gets the same answer.
+    // Only sightseeing questions may reuse the answer to a similarly worded one over the same context:
+    // with flights, the direction matters and the embedding cannot tell "Mumbai to Delhi" from "Delhi to Mumbai".
+    private static final LlmCacheOptions SEARCH_CACHE = new LlmCacheOptions("/api/sightseeing/search", true);
+    private static final LlmCacheOptions CITIES_CACHE = new LlmCacheOptions("/api/sightseeing/search-with-flights:cities");
+    private static final LlmCacheOptions WITH_FLIGHTS_CACHE = new LlmCacheOptions("/api/sightseeing/search-with-flights:answer");
+
+    // Flight lookups for the extracted cities run concurrently, at most this many at once
+    @Value("${sightseeing.flights.max-concurrency:4}")
+    private int flightLookupConcurrency = 4;
+
+    // A city whose lookup takes longer is left out of the answer
+    @Value("${sightseeing.flights.city-timeout-ms:30000}")
+    private long cityTimeoutMs = 30000;
+
+    private final SpringAIChatClient chatClient;
     private final SightseeingPromptTemplate promptTemplate;
     private final DemoVectorDB vectorDB;
     private final SightseeingStructuredOutputConverter converter;
     private final SightseeingWithFlightsConverter withFlightsConverter;
     private final FlightAIService flightAIService;
     private final ChatService chatService;
+    private final ExecutorService llmExecutor;
+
+    /**
+     * The flight lookup of one city. It holds a concurrency permit until its search returns,
+     * even after cancellation, and its timeout runs from when it starts, not when it is queued.
+     */
+    private static final class CityLookup {
+        private final String city;
+        private final FutureTask<List<Flight>> flights;
+        private final long timeoutNanos;
+        // Set by whichever comes first, the search starting or the lookup being cancelled before it
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile long deadlineNanos;
 
-    public SightseeingService(AzureOpenAiChatModel chatModel, SightseeingPromptTemplate promptTemplate,
+        CityLookup(String city, Callable<List<Flight>> search, Semaphore permits, long timeoutNanos) {
+            this.city = city;
+            this.timeoutNanos = timeoutNanos;
+            this.flights = new FutureTask<>(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return List.of();
+                }
+                deadlineNanos = System.nanoTime() + timeoutNanos;
+                started = true;
+                try {
+                    return search.call();
+                } finally {
+                    permits.release();
+                }
+            }) {
+                @Override
+                protected void done() {
+                    // Cancelled before the search started, so it never releases its permit
+                    if (claimed.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+            };
+        }
+
+        /** Time left before the lookup is overdue; a queued lookup still has its whole timeout */
+        long remainingNanos(long now) {
+            return started ? Math.max(0, deadlineNanos - now) : timeoutNanos;
+        }
+
+        boolean isOverdue(long now) {
+            return started && !flights.isDone() && now - deadlineNanos >= 0;
+        }
+    }
+
+    public SightseeingService(SpringAIChatClient chatClient, SightseeingPromptTemplate promptTemplate,
             DemoVectorDB vectorDB, SightseeingStructuredOutputConverter converter,
             SightseeingWithFlightsConverter withFlightsConverter, FlightAIService flightAIService,
-            ChatService chatService) {
-        this.chatModel = chatModel;
+            ChatService chatService, ExecutorService llmExecutor) {
+        this.chatClient = chatClient;
         this.promptTemplate = promptTemplate;
         this.vectorDB = vectorDB;
         this.converter = converter;
         this.withFlightsConverter = withFlightsConverter;
         this.flightAIService = flightAIService;
         this.chatService = chatService;
+        this.llmExecutor = llmExecutor;
     }
 
     public List<Sightseeing> searchSightseeing(String prompt) {
-        // Search vectorDB for sightseeing information
-        SearchResult sightseeingResults = vectorDB.search("sightseeing", prompt);
-
-        String sightseeingContext = sightseeingResults.getResults().stream()
-                .limit(20)
-                .map(DocumentChunk::getContent)
-                .collect(Collectors.joining("\n"));
-
-        System.out.println("Sightseeing Context:\n" + sightseeingContext);
-
-        // Create prompt for LLM
+        String sightseeingContext = searchContext(prompt);
         Prompt llmPrompt = promptTemplate.createSightseeingSearchPrompt(prompt, sightseeingContext);
 
         // Call LLM and get response
-        String response = ChatClient.create(chatModel).prompt(llmPrompt).call().content();
+        String response = chatClient.content(llmPrompt, SEARCH_CACHE.forQuery(prompt, sightseeingContext));
 
         System.out.println("LLM Response:\n" + response);
 
@@ -80,13 +157,35 @@ public class SightseeingService {
         }
     }
 
+    /**
+     * The LLM's answer to a sightseeing search as it is generated, unparsed
+     */
+    public Flux<String> streamSightseeing(String prompt) {
+        String sightseeingContext = searchContext(prompt);
+        return chatClient.stream(promptTemplate.createSightseeingSearchPrompt(prompt, sightseeingContext),
+                SEARCH_CACHE.forQuery(prompt, sightseeingContext));
+    }
+
+    private String searchContext(String prompt) {
+        // Search vectorDB for sightseeing information
+        SearchResult sightseeingResults = vectorDB.search("sightseeing", prompt, searchMode,
+                new SearchOptions(MAX_CONTEXT_CHUNKS));
+
+        String sightseeingContext = sightseeingResults.getResults().stream()
+                .map(DocumentChunk::getContent)
+                .collect(Collectors.joining("\n"));
+
+        System.out.println("Sightseeing Context:\n" + sightseeingContext);
+        return sightseeingContext;
+    }
+
     public List<SightseeingInfo> searchWithFlights(String prompt) {
         // STEP 1: Get sightseeing information
         System.out.println("STEP 1: Searching sightseeing information for: " + prompt);
-        SearchResult sightseeingResults = vectorDB.search("sightseeing", prompt);
+        SearchResult sightseeingResults = vectorDB.search("sightseeing", prompt, searchMode,
+                new SearchOptions(MAX_CONTEXT_CHUNKS));
 
         String sightseeingContext = sightseeingResults.getResults().stream()
-                .limit(20)
                 .map(DocumentChunk::getContent)
                 .collect(Collectors.joining("\n"));
 
@@ -102,7 +201,7 @@ public class SightseeingService {
                     + "\", extract ONLY the city names mentioned as a comma-separated list. "
                     + "If no city is found, return an empty string. "
                     + "Example: If context mentions Mumbai and Delhi, return 'Mumbai,Delhi'";
-            cities = chatService.sendMessage(cityExtractionPrompt).trim();
+            cities = chatService.sendMessage(cityExtractionPrompt, CITIES_CACHE).trim();
             System.out.println("Extracted cities: " + cities);
         } else {
             System.out.println("No sightseeing context found, skipping city extraction.");
@@ -113,22 +212,15 @@ public class SightseeingService {
         List<Flight> outgoingFlights = new ArrayList<>();
         
         if (!cities.isEmpty()) {
-            try {
-                for (String city : cities.split(",")) {
-                    String trimmedCity = city.trim();
-                    if (trimmedCity.isEmpty()) {
-                        continue;
-                    }
-                    System.out.println("Searching flights from: " + trimmedCity);
-                    List<Flight> flightsFromCity = flightAIService.searchFlight(null, trimmedCity, null);
-                    outgoingFlights.addAll(flightsFromCity);
-                    System.out.println("Found " + flightsFromCity.size() + " outgoing flights from " + trimmedCity);
-                }
-                System.out.println("Total outgoing flights: " + outgoingFlights.size());
-            } catch (Exception e) {
-                System.err.println("Error getting flights: " + e.getMessage());
-                e.printStackTrace();
-            }
+            List<String> distinctCities = Arrays.stream(cities.split(","))
+                    .map(String::trim)
+                    .filter(city -> !city.isEmpty())
+                    .distinct()
+                    .toList();
+            long start = System.currentTimeMillis();
+            outgoingFlights = searchFlightsFromCities(distinctCities);
+            System.out.println("Total outgoing flights: " + outgoingFlights.size() + " from " +
+                               distinctCities.size() + " cities in " + (System.currentTimeMillis() - start) + "ms");
         }
 
         // Convert flights to context string
@@ -174,7 +266,7 @@ public class SightseeingService {
         );
 
         // Call LLM and get response
-        String response = ChatClient.create(chatModel).prompt(llmPrompt).call().content();
+        String response = chatClient.content(llmPrompt, WITH_FLIGHTS_CACHE);
 
         System.out.println("\nLLM Response:\n" + response);
 
@@ -193,4 +285,80 @@ public class SightseeingService {
             return new ArrayList<>();
         }
     }
+
+    /**
+     * Outgoing flights from each city, looked up concurrently. Every lookup gets its own
+     * timeout from when it starts; the flights of cities that fail or time out are left out
+     * and the rest are returned. Like a structured task scope, no lookup outlives the call.
+     */
+    private List<Flight> searchFlightsFromCities(List<String> cities) {
+        Semaphore permits = new Semaphore(Math.max(1, flightLookupConcurrency));
+        List<CityLookup> lookups = new ArrayList<>();
+        List<Flight> outgoingFlights = new ArrayList<>();
+        try {
+            for (String city : cities) {
+                // Wait for a free slot, cancelling overdue lookups to free theirs
+                while (!permits.tryAcquire(untilFirstDeadline(lookups), TimeUnit.NANOSECONDS)) {
+                    cancelOverdue(lookups);
+                }
+                System.out.println("Searching flights from: " + city);
+                CityLookup lookup = new CityLookup(city, () -> flightAIService.searchFlight(null, city, null),
+                        permits, TimeUnit.MILLISECONDS.toNanos(cityTimeoutMs));
+                lookups.add(lookup);
+                llmExecutor.execute(lookup.flights);
+            }
+
+            for (CityLookup lookup : lookups) {
+                try {
+                    List<Flight> flightsFromCity = awaitFlights(lookup);
+                    outgoingFlights.addAll(flightsFromCity);
+                    System.out.println("Found " + flightsFromCity.size() + " outgoing flights from " + lookup.city);
+                } catch (TimeoutException | CancellationException e) {
+                    System.err.println("Flight search from " + lookup.city + " timed out after " + cityTimeoutMs + "ms");
+                } catch (ExecutionException e) {
+                    System.err.println("Error getting flights from " + lookup.city + ": " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Interrupts lookups that are still running, so they stop waiting on the LLM
+            lookups.forEach(lookup -> lookup.flights.cancel(true));
+        }
+        return outgoingFlights;
+    }
+
+    /**
+     * The lookup's flights, waiting while it is queued and then until its own deadline
+     */
+    private static List<Flight> awaitFlights(CityLookup lookup)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            try {
+                return lookup.flights.get(lookup.remainingNanos(System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (lookup.isOverdue(System.nanoTime())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long untilFirstDeadline(List<CityLookup> lookups) {
+        long now = System.nanoTime();
+        return lookups.stream()
+                .filter(lookup -> !lookup.flights.isDone())
+                .mapToLong(lookup -> lookup.remainingNanos(now))
+                .min()
+                .orElse(TimeUnit.MILLISECONDS.toNanos(cityTimeoutMs));
+    }
+
+    private void cancelOverdue(List<CityLookup> lookups) {
+        long now = System.nanoTime();
+        for (CityLookup lookup : lookups) {
+            if (lookup.isOverdue(now)) {
+                lookup.flights.cancel(true);
+            }
+        }
+    }
 }
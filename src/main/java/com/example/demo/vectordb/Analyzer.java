@@ -0,0 +1,125 @@
+package com.example.demo.vectordb;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns text into index terms. The same analyzer runs once per chunk at index
+ * time and once per query, so both sides produce identical terms and a query
+ * never re-processes the corpus.
+ */
+public class Analyzer {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Optional flight word, a two-character airline designator (letters, or a digit and a letter)
+    // and a 1-4 digit number, in any case
+    private static final Pattern SPLIT_FLIGHT_CODE = Pattern.compile(
+            "\\b(flights?[ #:]+)?([A-Z][A-Z0-9]|[0-9][A-Z])[ -](\\d{1,4})\\b", Pattern.CASE_INSENSITIVE);
+
+    // IATA designators of the airlines in the flight data and major international carriers;
+    // any other two-character word is only joined right after "flight"
+    private static final Set<String> DESIGNATORS = Set.of(
+            "6E", "AI", "G8", "I5", "IX", "QP", "SG", "UK", "9W", "S2",
+            "AA", "AF", "BA", "CX", "DL", "EK", "EY", "KL", "LH", "QR", "SQ", "TG", "TK", "UA");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in",
+            "into", "is", "it", "its", "of", "on", "or", "so", "such", "that", "the", "their",
+            "then", "there", "these", "they", "this", "to", "was", "were", "will", "with");
+
+    private final Set<AnalyzerStage> stages;
+
+    public Analyzer(Collection<AnalyzerStage> stages) {
+        this.stages = stages.isEmpty() ? EnumSet.noneOf(AnalyzerStage.class) : EnumSet.copyOf(stages);
+    }
+
+    /**
+     * Every stage enabled
+     */
+    public static Analyzer standard() {
+        return new Analyzer(EnumSet.allOf(AnalyzerStage.class));
+    }
+
+    public Set<AnalyzerStage> getStages() {
+        return Collections.unmodifiableSet(stages);
+    }
+
+    /**
+     * Terms of the text in order, duplicates included
+     */
+    public List<String> analyze(String text) {
+        if (stages.contains(AnalyzerStage.UNICODE_NORMALIZE)) {
+            text = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        }
+        if (stages.contains(AnalyzerStage.FLIGHT_CODES)) {
+            text = joinFlightCodes(text);
+        }
+        if (stages.contains(AnalyzerStage.LOWERCASE)) {
+            text = text.toLowerCase(Locale.ROOT);
+        }
+
+        boolean stopWords = stages.contains(AnalyzerStage.STOP_WORDS);
+        boolean stem = stages.contains(AnalyzerStage.STEM);
+        List<String> terms = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.find()) {
+            String term = matcher.group();
+            if (stopWords && STOP_WORDS.contains(term)) {
+                continue;
+            }
+            terms.add(stem ? stem(term) : term);
+        }
+        return terms;
+    }
+
+    /**
+     * Joins "AI 202", "ai 202" and "flight XY 12" into one upper-case code, but neither "TO 10"
+     * nor "flights to 10"
+     */
+    static String joinFlightCodes(String text) {
+        Matcher matcher = SPLIT_FLIGHT_CODE.matcher(text);
+        StringBuilder joined = new StringBuilder(text.length());
+        while (matcher.find()) {
+            String designator = matcher.group(2).toUpperCase(Locale.ROOT);
+            String flightWord = matcher.group(1);
+            boolean joinable = DESIGNATORS.contains(designator)
+                    || (flightWord != null && !STOP_WORDS.contains(designator.toLowerCase(Locale.ROOT)));
+            String replacement = joinable
+                    ? (flightWord != null ? flightWord : "") + designator + matcher.group(3)
+                    : matcher.group();
+            matcher.appendReplacement(joined, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(joined);
+        return joined.toString();
+    }
+
+    /**
+     * Strip English plural endings from all-letter terms; flight codes and numbers are kept
+     */
+    static String stem(String term) {
+        int length = term.length();
+        if (length < 4 || !term.chars().allMatch(Character::isLetter)) {
+            return term;
+        }
+        if (term.endsWith("ies") && length > 4) {
+            return term.substring(0, length - 3) + "y";
+        }
+        if (term.endsWith("ches") || term.endsWith("shes") || term.endsWith("sses")
+                || term.endsWith("xes") || term.endsWith("zes")) {
+            return term.substring(0, length - 2);
+        }
+        if (term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us") && !term.endsWith("is")) {
+            return term.substring(0, length - 1);
+        }
+        return term;
+    }
+
+    @Override
+    public String toString() {
+        return "Analyzer" + stages;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.vectordb;
+
+/**
+ * Optional steps of an {@link Analyzer}. Character-level stages run before the
+ * text is split into tokens and token filters after, whatever order they are listed in.
+ */
+public enum AnalyzerStage {
+
+    /** Unicode NFKD with combining marks removed, so "café" and "cafe" are the same term */
+    UNICODE_NORMALIZE,
+
+    /** Join flight numbers written with a space or hyphen ("AI 202", "6e-101") into one token */
+    FLIGHT_CODES,
+
+    /** Case-fold the text */
+    LOWERCASE,
+
+    /** Drop common English words such as "the", "from" and "to" */
+    STOP_WORDS,
+
+    /** Light English plural stemming: "beaches" to "beach", "cities" to "city" */
+    STEM
+}
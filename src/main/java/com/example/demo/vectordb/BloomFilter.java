@@ -0,0 +1,60 @@
+package com.example.demo.vectordb;
+
+/**
+ * Fixed-size bloom filter over int keys (term ids). About ten bits per
+ * expected key and seven probes give roughly a 1% false positive rate;
+ * there are never false negatives.
+ */
+public class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int PROBES = 7;
+
+    private final long[] bits;
+    private final int bitCount;
+
+    public BloomFilter(int expectedKeys) {
+        int words = Math.max(1, (int) (((long) Math.max(1, expectedKeys) * BITS_PER_KEY + 63) / 64));
+        this.bits = new long[words];
+        this.bitCount = words * 64;
+    }
+
+    public void add(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getSizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * 64-bit finalizer of MurmurHash3, so neighbouring term ids land on unrelated bits
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
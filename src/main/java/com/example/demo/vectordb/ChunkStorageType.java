@@ -0,0 +1,18 @@
+package com.example.demo.vectordb;
+
+/**
+ * How an index that is served from memory rather than from a mapped segment
+ * keeps its chunks. With segments enabled, an index built from a data path is
+ * served from its segment and the storage type does not apply.
+ */
+public enum ChunkStorageType {
+
+    /** One {@link DocumentChunk} object per chunk */
+    OBJECTS,
+
+    /** {@link CompactChunkList} with the text in a heap byte array */
+    COMPACT,
+
+    /** {@link CompactChunkList} with the text in a direct buffer outside the Java heap */
+    COMPACT_OFF_HEAP
+}
@@ -0,0 +1,13 @@
+package com.example.demo.vectordb;
+
+/**
+ * How {@link TextChunker} cuts source files into chunks.
+ */
+public enum ChunkingStrategy {
+
+    /** Overlapping fixed-width character windows, cut wherever the width runs out */
+    FIXED,
+
+    /** Whole sentences, lines and paragraphs, and whole JSON objects, packed up to a token budget */
+    STRUCTURED
+}
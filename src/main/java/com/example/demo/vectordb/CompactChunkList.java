@@ -0,0 +1,364 @@
+package com.example.demo.vectordb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Read-only chunk list in columns instead of one object per chunk.
+ *
+ * Chunk ids and texts are UTF-8 in one shared byte arena, on the heap or in a
+ * direct buffer. Chunks with identical text, found by a 64-bit content hash
+ * and confirmed byte by byte, share one copy; chunks that only overlap or
+ * differ slightly are stored in full. Source files and document types
+ * are dictionary codes, and each metadata key is a column: int values in an
+ * int array, strings as dictionary codes, anything else as plain objects.
+ *
+ * {@link #get(int)} materializes a {@link DocumentChunk} on every call, so a
+ * search only builds objects for the hits it returns.
+ */
+public class CompactChunkList extends AbstractList<DocumentChunk> implements RandomAccess {
+
+    private final ByteBuffer arena;
+    private final int[] idOffsets;
+    private final int[] idLengths;
+    private final int[] contentIds;
+    private final int[] contentOffsets;
+    private final int[] contentLengths;
+    private final int[] chunkIndexes;
+    private final String[] sourceFiles;
+    private final int[] sourceFileCodes;
+    private final String[] documentTypes;
+    private final int[] documentTypeCodes;
+    private final Map<String, MetadataColumn> metadata;
+
+    private CompactChunkList(ByteBuffer arena, int[] idOffsets, int[] idLengths, int[] contentIds,
+                             int[] contentOffsets, int[] contentLengths, int[] chunkIndexes,
+                             String[] sourceFiles, int[] sourceFileCodes, String[] documentTypes,
+                             int[] documentTypeCodes, Map<String, MetadataColumn> metadata) {
+        this.arena = arena;
+        this.idOffsets = idOffsets;
+        this.idLengths = idLengths;
+        this.contentIds = contentIds;
+        this.contentOffsets = contentOffsets;
+        this.contentLengths = contentLengths;
+        this.chunkIndexes = chunkIndexes;
+        this.sourceFiles = sourceFiles;
+        this.sourceFileCodes = sourceFileCodes;
+        this.documentTypes = documentTypes;
+        this.documentTypeCodes = documentTypeCodes;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Copy the chunks into columns; the arena is limited to 2 GB of text
+     */
+    public static CompactChunkList build(List<DocumentChunk> chunks, boolean offHeap) {
+        int count = chunks.size();
+        Arena arena = new Arena();
+        int[] idOffsets = new int[count];
+        int[] idLengths = new int[count];
+        int[] contentIds = new int[count];
+        int[] chunkIndexes = new int[count];
+        Dictionary sourceFiles = new Dictionary();
+        Dictionary documentTypes = new Dictionary();
+        int[] sourceFileCodes = new int[count];
+        int[] documentTypeCodes = new int[count];
+
+        // Distinct texts, and the first distinct text per content hash
+        int[] contentOffsets = new int[Math.max(1, count)];
+        int[] contentLengths = new int[Math.max(1, count)];
+        int distinct = 0;
+        Map<Long, Integer> contentByHash = new HashMap<>(count * 2);
+
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            DocumentChunk chunk = chunks.get(ordinal);
+            byte[] id = chunk.getId().getBytes(StandardCharsets.UTF_8);
+            idOffsets[ordinal] = arena.append(id);
+            idLengths[ordinal] = id.length;
+
+            byte[] content = chunk.getContent().getBytes(StandardCharsets.UTF_8);
+            long hash = hash(content);
+            Integer existing = contentByHash.get(hash);
+            if (existing != null && arena.equals(contentOffsets[existing], contentLengths[existing], content)) {
+                contentIds[ordinal] = existing;
+            } else {
+                contentOffsets[distinct] = arena.append(content);
+                contentLengths[distinct] = content.length;
+                // On a hash collision the first text keeps the slot and later copies stay separate
+                contentByHash.putIfAbsent(hash, distinct);
+                contentIds[ordinal] = distinct++;
+            }
+
+            chunkIndexes[ordinal] = chunk.getChunkIndex();
+            sourceFileCodes[ordinal] = sourceFiles.code(chunk.getSourceFile());
+            documentTypeCodes[ordinal] = documentTypes.code(chunk.getDocumentType());
+        }
+
+        Map<String, MetadataColumn> metadata = new TreeMap<>();
+        for (String key : metadataKeys(chunks)) {
+            metadata.put(key, MetadataColumn.build(chunks, key));
+        }
+
+        return new CompactChunkList(arena.toBuffer(offHeap), idOffsets, idLengths, contentIds,
+                Arrays.copyOf(contentOffsets, distinct), Arrays.copyOf(contentLengths, distinct), chunkIndexes,
+                sourceFiles.values(), sourceFileCodes, documentTypes.values(), documentTypeCodes, metadata);
+    }
+
+    private static Set<String> metadataKeys(List<DocumentChunk> chunks) {
+        Set<String> keys = new TreeSet<>();
+        for (DocumentChunk chunk : chunks) {
+            keys.addAll(chunk.getMetadata().keySet());
+        }
+        return keys;
+    }
+
+    /**
+     * 64-bit FNV-1a
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public DocumentChunk get(int index) {
+        Objects.checkIndex(index, contentIds.length);
+        DocumentChunk chunk = new DocumentChunk(decode(idOffsets[index], idLengths[index]), getContent(index),
+                sourceFiles[sourceFileCodes[index]], chunkIndexes[index], documentTypes[documentTypeCodes[index]]);
+        for (Map.Entry<String, MetadataColumn> column : metadata.entrySet()) {
+            Object value = column.getValue().get(index);
+            if (value != null) {
+                chunk.addMetadata(column.getKey(), value);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Text of one chunk without materializing the rest of it
+     */
+    public String getContent(int index) {
+        int content = contentIds[index];
+        return decode(contentOffsets[content], contentLengths[content]);
+    }
+
+    @Override
+    public int size() {
+        return contentIds.length;
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        arena.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public boolean isOffHeap() {
+        return arena.isDirect();
+    }
+
+    public int getDistinctContentCount() {
+        return contentOffsets.length;
+    }
+
+    /**
+     * Chunks whose text is shared with an earlier chunk instead of stored again
+     */
+    public int getDuplicateCount() {
+        return size() - getDistinctContentCount();
+    }
+
+    public long getArenaBytes() {
+        return arena.capacity();
+    }
+
+    /**
+     * Columns and dictionaries on the heap, plus the arena unless it is off-heap
+     */
+    public long getHeapBytes() {
+        long bytes = (long) Integer.BYTES * (6L * size() + 2L * contentOffsets.length);
+        bytes += stringBytes(sourceFiles) + stringBytes(documentTypes);
+        for (MetadataColumn column : metadata.values()) {
+            bytes += column.bytes();
+        }
+        return bytes + (isOffHeap() ? 0 : arena.capacity());
+    }
+
+    public long getOffHeapBytes() {
+        return isOffHeap() ? arena.capacity() : 0;
+    }
+
+    /**
+     * Storage kind of each metadata column, e.g. {@code array_index=int}
+     */
+    public Map<String, String> getMetadataColumns() {
+        Map<String, String> columns = new TreeMap<>();
+        metadata.forEach((key, column) -> columns.put(key, column.kind()));
+        return columns;
+    }
+
+    private static long stringBytes(String[] values) {
+        long bytes = 0;
+        for (String value : values) {
+            // Header plus compact Latin-1 contents for the ASCII names used here
+            bytes += 48 + (value == null ? 0 : value.length());
+        }
+        return bytes;
+    }
+
+    /**
+     * Growable UTF-8 buffer used while building
+     */
+    private static final class Arena {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        int append(byte[] value) {
+            if (size + value.length > bytes.length) {
+                long grown = Math.max((long) bytes.length * 2, (long) size + value.length);
+                if (grown > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Chunk text exceeds the 2 GB arena");
+                }
+                bytes = Arrays.copyOf(bytes, (int) grown);
+            }
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+            return size - value.length;
+        }
+
+        boolean equals(int offset, int length, byte[] value) {
+            return Arrays.equals(bytes, offset, offset + length, value, 0, value.length);
+        }
+
+        ByteBuffer toBuffer(boolean offHeap) {
+            if (!offHeap) {
+                return ByteBuffer.wrap(Arrays.copyOf(bytes, size));
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            buffer.put(0, bytes, 0, size);
+            return buffer;
+        }
+    }
+
+    /**
+     * Distinct values in first-seen order; nulls get a code too
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * One metadata key across all chunks; {@link #get} returns null where a chunk lacks the key
+     */
+    private interface MetadataColumn {
+
+        Object get(int ordinal);
+
+        long bytes();
+
+        String kind();
+
+        static MetadataColumn build(List<DocumentChunk> chunks, String key) {
+            boolean ints = true;
+            boolean strings = true;
+            for (DocumentChunk chunk : chunks) {
+                Object value = chunk.getMetadata().get(key);
+                ints &= value == null || value instanceof Integer;
+                strings &= value == null || value instanceof String;
+            }
+
+            if (ints) {
+                int[] values = new int[chunks.size()];
+                BitSet present = new BitSet(chunks.size());
+                for (int i = 0; i < values.length; i++) {
+                    Object value = chunks.get(i).getMetadata().get(key);
+                    if (value != null) {
+                        values[i] = (Integer) value;
+                        present.set(i);
+                    }
+                }
+                return new IntColumn(values, present);
+            }
+            if (strings) {
+                Dictionary dictionary = new Dictionary();
+                int[] codes = new int[chunks.size()];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = dictionary.code((String) chunks.get(i).getMetadata().get(key));
+                }
+                return new StringColumn(dictionary.values(), codes);
+            }
+            Object[] values = new Object[chunks.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = chunks.get(i).getMetadata().get(key);
+            }
+            return new ObjectColumn(values);
+        }
+    }
+
+    private record IntColumn(int[] values, BitSet present) implements MetadataColumn {
+        public Object get(int ordinal) {
+            return present.get(ordinal) ? values[ordinal] : null;
+        }
+
+        public long bytes() {
+            return (long) values.length * Integer.BYTES + present.size() / 8;
+        }
+
+        public String kind() {
+            return "int";
+        }
+    }
+
+    private record StringColumn(String[] dictionary, int[] codes) implements MetadataColumn {
+        public Object get(int ordinal) {
+            return dictionary[codes[ordinal]];
+        }
+
+        public long bytes() {
+            return (long) codes.length * Integer.BYTES + stringBytes(dictionary);
+        }
+
+        public String kind() {
+            return "string";
+        }
+    }
+
+    private record ObjectColumn(Object[] values) implements MetadataColumn {
+        public Object get(int ordinal) {
+            return values[ordinal];
+        }
+
+        public long bytes() {
+            // Reference per chunk plus a boxed value or small object per present entry
+            long bytes = (long) values.length * 4;
+            for (Object value : values) {
+                bytes += value == null ? 0 : 16;
+            }
+            return bytes;
+        }
+
+        public String kind() {
+            return "object";
+        }
+    }
+}
@@ -1,18 +1,48 @@
 package com.example.demo.vectordb;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @Component
@@ -21,13 +51,69 @@ public class DemoVectorDB {
     private static DemoVectorDB instance;
     
     // In-memory collections
-    private final Map<String, List<DocumentChunk>> indexes = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> indexMetadata = new ConcurrentHashMap<>();
+    private final Map<String, IndexSnapshot> indexes = new ConcurrentHashMap<>();
+    private final Map<String, IndexWatcher> watchers = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> buildLocks = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private Embedder embedder = new HashingEmbedder();
     
     // Configuration
-    private static final int DEFAULT_CHUNK_SIZE = 500;
-    private static final int CHUNK_OVERLAP = 50;
+    private static final int RECALL_SAMPLE_QUERIES = 50;
+    private static final int RECALL_K = 10;
+    private static final int DEFAULT_TOP_K = 10;
+    // Filters matching at most this many chunks are scored exactly instead of through the ANN index
+    private static final int FILTER_EXACT_LIMIT = 4096;
+    // Each hybrid retriever ranks this many times k candidates for the fusion
+    private static final int HYBRID_CANDIDATE_FACTOR = 5;
+    // A first page ranks this many pages ahead for its cursor
+    private static final int CURSOR_PREFETCH_PAGES = 10;
+    private static final int MAX_STORED_RANKINGS = 10_000;
+    private static final int QUERY_CACHE_ENTRY_OVERHEAD = 128;
+    
+    // Reused per thread so keyword queries do not allocate an array per index size
+    private static final ThreadLocal<ScoreAccumulator> SCORE_ACCUMULATOR = ThreadLocal.withInitial(ScoreAccumulator::new);
+    private static final String SEGMENT_EXTENSION = ".seg";
+
+    @Value("${vectordb.segments.enabled:true}")
+    private boolean segmentsEnabled = true;
+
+    @Value("${vectordb.segments.dir:vectordb-segments}")
+    private String segmentDir = "vectordb-segments";
+
+    /** Worker threads for reading, chunking and embedding during createIndex; 0 means one per core */
+    @Value("${vectordb.build.parallelism:0}")
+    private int buildParallelism = 0;
+
+    /** Worker threads of a batch search, which runs on its own pool; 0 means one per core */
+    @Value("${vectordb.batch.parallelism:0}")
+    private int batchParallelism = 0;
+
+    /** Reciprocal rank fusion weights of the BM25 and vector retrievers in hybrid search */
+    @Value("${vectordb.hybrid.lexical-weight:1.0}")
+    private float hybridLexicalWeight = 1.0f;
+
+    @Value("${vectordb.hybrid.vector-weight:1.0}")
+    private float hybridVectorWeight = 1.0f;
+
+    /** Rank offset of reciprocal rank fusion; larger values flatten the gap between top ranks */
+    @Value("${vectordb.hybrid.rrf-k:60}")
+    private int rrfK = 60;
+
+    /** Most hits a search ranks, and so the deepest a cursor can page */
+    @Value("${vectordb.search.max-depth:1000}")
+    private int maxSearchDepth = 1000;
+
+    @Value("${vectordb.search.cursor-ttl-seconds:300}")
+    private int cursorTtlSeconds = 300;
+
+    /** Approximate memory bound of the query cache, evicted by W-TinyLFU */
+    @Value("${vectordb.cache.max-bytes:33554432}")
+    private long queryCacheMaxBytes = 32L * 1024 * 1024;
+
+    private volatile Cache<QueryKey, Ranking> queryCache = newQueryCache(queryCacheMaxBytes);
+    // Rankings behind live cursors, dropped when their cursor expires or the most stale beyond the bound
+    private volatile Cache<String, StoredRanking> rankings = newRankingCache(cursorTtlSeconds);
+    private final LongAdder queryCacheInvalidations = new LongAdder();
 
     public DemoVectorDB() {
         instance = this;
@@ -37,13 +123,32 @@ public class DemoVectorDB {
         return instance;
     }
 
+    /**
+     * Replace the default hashing embedder, e.g. with a model-backed one
+     */
+    @Autowired(required = false)
+    public void setEmbedder(Embedder embedder) {
+        this.embedder = embedder;
+    }
+
+    public Embedder getEmbedder() {
+        return embedder;
+    }
+
     @PostConstruct
     public void initialize() {
         System.out.println("🚀 Initializing DemoVectorDB singleton...");
         
+        // Sized from configuration, which is only injected after construction
+        queryCache = newQueryCache(queryCacheMaxBytes);
+        rankings = newRankingCache(cursorTtlSeconds);
+        
         // Create some sample data
         createSampleData();
         
+        // Map indexes persisted by earlier runs instead of re-chunking their sources
+        loadSegments();
+        
         // Load any existing data from workspace
         loadWorkspaceData();
         
@@ -54,98 +159,1127 @@ public class DemoVectorDB {
     /**
      * Create an index by processing files from a folder or single file
      */
-    public void createIndex(String indexName, String dataPath) {
-        System.out.println("📚 Creating index: " + indexName + " from: " + dataPath);
+    public Map<String, Object> createIndex(String indexName, String dataPath) {
+        return createIndex(indexName, dataPath, new IndexOptions());
+    }
+
+    /**
+     * Reuse the index if a segment built from the same, unchanged data path is already
+     * mapped; refresh it if files under that path changed, otherwise create it
+     */
+    public void openOrCreateIndex(String indexName, String dataPath) {
+        IndexSnapshot existing = indexes.get(indexName);
+        IndexSnapshot.Source source = existing != null ? existing.getSource() : null;
         
-        List<DocumentChunk> chunks = new ArrayList<>();
-        Set<String> processedFiles = new HashSet<>();
+        try {
+            if (source != null && source.segmentPath() != null && dataPath.equals(source.dataPath())
+                    && sourceFingerprint(Paths.get(dataPath)).equals(source.fingerprint())) {
+                System.out.println("♻️ Index '" + indexName + "' is up to date in segment " + source.segmentPath());
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error checking data path " + dataPath + ": " + e.getMessage());
+        }
         
+        if (source != null && dataPath.equals(source.dataPath())) {
+            // Same data path with changed files: re-chunk only what changed
+            refreshIndex(indexName);
+        } else {
+            createIndex(indexName, dataPath, existing != null ? existing.getOptions() : new IndexOptions());
+        }
+    }
+
+    /**
+     * Create an index with per-index options such as the vector index type; returns the
+     * build throughput (files, bytes and chunks per second)
+     */
+    public Map<String, Object> createIndex(String indexName, String dataPath, IndexOptions options) {
+        System.out.println("📚 Creating index: " + indexName + " from: " + dataPath + " with " + options);
+        return buildIndex(indexName, dataPath, options, null);
+    }
+
+    /**
+     * Re-index the data path of an existing index, re-chunking and re-embedding only the
+     * files whose content hash changed; the new version replaces the old one atomically
+     */
+    public Map<String, Object> refreshIndex(String indexName) {
+        IndexSnapshot existing = indexes.get(indexName);
+        if (existing == null) {
+            return Map.of("error", "Index not found: " + indexName);
+        }
+        if (existing.getSource() == null) {
+            return Map.of("error", "Index '" + indexName + "' was not built from a data path");
+        }
+        
+        System.out.println("🔄 Refreshing index: " + indexName + " from: " + existing.getSource().dataPath());
+        return buildIndex(indexName, existing.getSource().dataPath(), existing.getOptions(), existing);
+    }
+
+    /**
+     * Start or stop re-indexing an index whenever files under its data path change
+     */
+    public void setWatching(String indexName, boolean watch) {
+        IndexSnapshot index = indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("Index not found: " + indexName);
+        }
+        if (watch && index.getSource() == null) {
+            throw new IllegalArgumentException("Index '" + indexName + "' was not built from a data path");
+        }
+        index.getOptions().setWatch(watch);
+        updateWatcher(index);
+    }
+
+    public boolean isWatching(String indexName) {
+        return watchers.containsKey(indexName);
+    }
+
+    @PreDestroy
+    public void stopWatchers() {
+        for (String indexName : new ArrayList<>(watchers.keySet())) {
+            closeWatcher(indexName);
+        }
+    }
+
+    private void updateWatcher(IndexSnapshot index) {
+        String indexName = index.getIndexName();
+        if (!index.getOptions().isWatch() || index.getSource() == null) {
+            closeWatcher(indexName);
+            return;
+        }
+        
+        watchers.computeIfAbsent(indexName, name -> {
+            try {
+                IndexWatcher watcher = new IndexWatcher(name, Paths.get(index.getSource().dataPath()),
+                                                        () -> refreshIndex(name));
+                watcher.start();
+                return watcher;
+            } catch (IOException e) {
+                System.err.println("❌ Error watching index '" + name + "': " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    private void closeWatcher(String indexName) {
+        IndexWatcher watcher = watchers.remove(indexName);
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println("❌ Error closing watcher for '" + indexName + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Build an index from its data path. With a previous version, files whose content hash
+     * is unchanged keep their chunks and embeddings; only the postings are rebuilt.
+     */
+    private Map<String, Object> buildIndex(String indexName, String dataPath, IndexOptions options,
+                                           IndexSnapshot previous) {
+        long startTime = System.nanoTime();
+        
+        Path path = Paths.get(dataPath);
+        List<Path> sourceFiles;
         try {
-            Path path = Paths.get(dataPath);
-            
             if (Files.isDirectory(path)) {
-                // Process all files in directory
+                // Sorted, so chunk ordinals do not depend on directory listing order
                 try (Stream<Path> files = Files.walk(path)) {
-                    files.filter(Files::isRegularFile)
-                         .forEach(filePath -> {
-                             processFile(filePath.toString(), chunks);
-                             processedFiles.add(filePath.getFileName().toString());
-                         });
+                    sourceFiles = files.filter(Files::isRegularFile).sorted().toList();
                 }
             } else if (Files.exists(path)) {
-                // Process single file
-                processFile(dataPath, chunks);
-                processedFiles.add(path.getFileName().toString());
+                sourceFiles = List.of(path);
             } else {
                 System.err.println("❌ Path does not exist: " + dataPath);
-                return;
+                return Collections.emptyMap();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error creating index: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+        
+        Map<String, IndexSnapshot.FileEntry> previousFiles = new HashMap<>();
+        if (previous != null && previous.getSource().fileEntries() != null) {
+            for (IndexSnapshot.FileEntry entry : previous.getSource().fileEntries()) {
+                previousFiles.put(entry.path(), entry);
+            }
+        }
+        
+        // One build per index at a time; searches keep using the current version meanwhile
+        ReentrantLock buildLock = buildLocks.computeIfAbsent(indexName, name -> new ReentrantLock());
+        buildLock.lock();
+        int parallelism = buildParallelism > 0 ? buildParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Read and chunk files in parallel; each worker returns its own list and the
+            // ordered collect concatenates them in file order, so no shared list is locked
+            TextChunker chunker = TextChunker.of(options);
+            List<ParsedFile> parsedFiles = pool.submit(() -> sourceFiles.parallelStream()
+                    .map(file -> scanFile(file, previousFiles.get(file.toString()), previous, chunker))
+                    .toList()).get();
+            
+            List<DocumentChunk> chunks = new ArrayList<>();
+            List<IndexSnapshot.FileEntry> fileEntries = new ArrayList<>();
+            Set<String> processedFiles = new HashSet<>();
+            long totalBytes = 0;
+            int added = 0;
+            int changed = 0;
+            for (ParsedFile parsedFile : parsedFiles) {
+                fileEntries.add(new IndexSnapshot.FileEntry(parsedFile.path(), parsedFile.hash(), parsedFile.bytes(),
+                        parsedFile.lastModified(), chunks.size(), parsedFile.chunks().size()));
+                chunks.addAll(parsedFile.chunks());
+                processedFiles.add(parsedFile.fileName());
+                totalBytes += parsedFile.bytes();
+                if (parsedFile.previousOrdinal() < 0) {
+                    if (previousFiles.containsKey(parsedFile.path())) {
+                        changed++;
+                    } else {
+                        added++;
+                    }
+                }
             }
+            int deleted = previousFiles.size() - (parsedFiles.size() - added);
             
-            indexes.put(indexName, chunks);
-            indexMetadata.put(indexName, processedFiles);
+            if (previous != null && added == 0 && changed == 0 && deleted == 0) {
+                System.out.println("✅ Index '" + indexName + "' is up to date");
+                return refreshStats(buildStats(parsedFiles.size(), totalBytes, chunks.size(), previous.getLlmTokens(),
+                        parallelism, System.nanoTime() - startTime), 0, 0, 0, parsedFiles.size());
+            }
             
-            System.out.println("✅ Index '" + indexName + "' created with " + chunks.size() + 
-                             " chunks from " + processedFiles.size() + " files");
+            // Ordinal of each chunk in the previous version, or -1 when it has to be embedded
+            int[] previousOrdinals = new int[chunks.size()];
+            int ordinal = 0;
+            for (ParsedFile parsedFile : parsedFiles) {
+                for (int i = 0; i < parsedFile.chunks().size(); i++) {
+                    previousOrdinals[ordinal++] = parsedFile.previousOrdinal() < 0 ? -1 : parsedFile.previousOrdinal() + i;
+                }
+            }
             
-        } catch (IOException e) {
+            // Tokenize and embed every chunk in parallel into slots indexed by ordinal
+            Analyzer analyzer = new Analyzer(options.getAnalyzer());
+            InvertedIndex.TermCounts[] chunkTerms = new InvertedIndex.TermCounts[chunks.size()];
+            float[][] embeddings = new float[chunks.size()][];
+            // Counted while the text is at hand, so stats never decode the chunks again
+            LongAdder llmTokens = new LongAdder();
+            pool.submit(() -> IntStream.range(0, chunks.size()).parallel().forEach(i -> {
+                String content = chunks.get(i).getContent();
+                chunkTerms[i] = InvertedIndex.countTerms(analyzer, content);
+                llmTokens.add(TextChunker.estimateTokens(content));
+                embeddings[i] = previousOrdinals[i] < 0
+                        ? embedder.embed(content)
+                        : previous.getVectorStore().get(previousOrdinals[i]);
+            })).get();
+            
+            String fingerprint = sourceFingerprint(path);
+            InvertedIndex invertedIndex = InvertedIndex.fromTerms(analyzer, Arrays.asList(chunkTerms));
+            MetadataIndex metadataIndex = MetadataIndex.build(chunks);
+            VectorStore vectorStore = storeVectors(embeddings, options);
+            Set<String> documentTypes = documentTypes(chunks);
+            
+            IndexSnapshot snapshot = null;
+            if (segmentsEnabled) {
+                if (options.getChunkStorage() != ChunkStorageType.OBJECTS) {
+                    System.out.println("ℹ️ Index '" + indexName + "' is served from its segment, so chunk storage " +
+                                     options.getChunkStorage() + " does not apply; the segment stores identical chunk texts once");
+                }
+                try {
+                    Path segmentPath = segmentPath(indexName);
+                    SegmentWriter.write(segmentPath, segmentHeader(indexName, options, dataPath, fingerprint,
+                            processedFiles, fileEntries, documentTypes, chunks.size(), llmTokens.sum()), chunks,
+                            invertedIndex, metadataIndex, vectorStore);
+                    // Serve from the mapped segment so the bulk of the index stays off the heap
+                    snapshot = openSegment(segmentPath);
+                } catch (IOException e) {
+                    System.err.println("❌ Error writing segment for '" + indexName + "', keeping it on the heap: " + e.getMessage());
+                }
+            }
+            if (snapshot == null) {
+                snapshot = assembleIndex(indexName, options, chunks, processedFiles, documentTypes, llmTokens.sum(),
+                        invertedIndex, metadataIndex, vectorStore, new IndexSnapshot.Source(dataPath, fingerprint, null, fileEntries));
+            }
+            // Searches that already hold the previous version finish on it
+            publish(snapshot);
+            updateWatcher(snapshot);
+            
+            Map<String, Object> build = buildStats(parsedFiles.size(), totalBytes, chunks.size(), llmTokens.sum(),
+                                                   parallelism, System.nanoTime() - startTime);
+            if (previous != null) {
+                build = refreshStats(build, added, changed, deleted, parsedFiles.size() - added - changed);
+            }
+            System.out.println("✅ Index '" + indexName + "' " + (previous != null ? "refreshed" : "created") +
+                             " with " + chunks.size() + " chunks from " + processedFiles.size() + " files " + build);
+            return build;
+            
+        } catch (IOException | ExecutionException e) {
             System.err.println("❌ Error creating index: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Index creation interrupted: " + indexName);
+        } finally {
+            pool.shutdown();
+            buildLock.unlock();
+        }
+        return Collections.emptyMap();
+    }
+
+    private Map<String, Object> refreshStats(Map<String, Object> build, int added, int changed, int deleted,
+                                             int unchanged) {
+        build.put("filesAdded", added);
+        build.put("filesChanged", changed);
+        build.put("filesDeleted", deleted);
+        build.put("filesUnchanged", unchanged);
+        return build;
+    }
+
+    private Map<String, Object> buildStats(int files, long bytes, int chunks, long llmTokens, int parallelism,
+                                           long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("files", files);
+        stats.put("bytes", bytes);
+        stats.put("chunks", chunks);
+        stats.put("llmTokens", llmTokens);
+        stats.put("avgChunkLlmTokens", chunks == 0 ? 0 : (double) llmTokens / chunks);
+        stats.put("parallelism", parallelism);
+        stats.put("elapsedMs", elapsedNanos / 1_000_000);
+        stats.put("filesPerSecond", files / seconds);
+        stats.put("mbPerSecond", bytes / (1024.0 * 1024.0) / seconds);
+        stats.put("chunksPerSecond", chunks / seconds);
+        return stats;
+    }
+
+    /**
+     * Estimated LLM tokens of the chunk texts, i.e. what sending every chunk as context would cost
+     */
+    private long estimateLlmTokens(List<DocumentChunk> chunks) {
+        long tokens = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            tokens += TextChunker.estimateTokens(chunkContent(chunks, i));
         }
+        return tokens;
     }
 
     /**
      * Search within a specific index
      */
     public SearchResult search(String indexName, String query) {
+        return search(indexName, query, SearchMode.KEYWORD);
+    }
+
+    /**
+     * Search within a specific index using the given search mode
+     */
+    public SearchResult search(String indexName, String query, SearchMode mode) {
+        return search(indexName, query, mode, new SearchOptions());
+    }
+
+    /**
+     * Search only the chunks matching a metadata filter such as
+     * {@code documentType=json AND NOT sourceFile="flights.json"}; no filter when null or blank.
+     * The filter is resolved to a bitmap of ordinals before any chunk is scored.
+     *
+     * @throws IllegalArgumentException if the filter is malformed
+     */
+    public SearchResult search(String indexName, String query, SearchMode mode, String filter) {
+        SearchOptions options = new SearchOptions();
+        options.setFilter(filter);
+        return search(indexName, query, mode, options);
+    }
+
+    /**
+     * Search one page of {@code options.getK()} hits. With {@link SearchOptions#isPaged()},
+     * the first page ranks up to {@code vectordb.search.max-depth} hits once and keeps that
+     * ranking; the returned cursor then reads later pages from it without scoring the index again. A cursor
+     * stays on the index version it was created on, even if the index is rebuilt.
+     *
+     * @throws IllegalArgumentException if the filter is malformed or the cursor unknown or expired
+     */
+    public SearchResult search(String indexName, String query, SearchMode mode, SearchOptions options) {
+        return search(indexName, query, mode, options, hybridLexicalWeight, hybridVectorWeight);
+    }
+
+    /**
+     * Hybrid search with per-query fusion weights instead of the configured ones;
+     * a retriever with weight 0 is not run
+     */
+    public SearchResult searchHybrid(String indexName, String query, String filter,
+                                     float lexicalWeight, float vectorWeight) {
+        SearchOptions options = new SearchOptions();
+        options.setFilter(filter);
+        return searchHybrid(indexName, query, options, lexicalWeight, vectorWeight);
+    }
+
+    public SearchResult searchHybrid(String indexName, String query, SearchOptions options,
+                                     float lexicalWeight, float vectorWeight) {
+        if (lexicalWeight < 0 || vectorWeight < 0 || lexicalWeight + vectorWeight == 0) {
+            throw new IllegalArgumentException("Hybrid weights must be non-negative and not both 0");
+        }
+        return search(indexName, query, SearchMode.HYBRID, options, lexicalWeight, vectorWeight);
+    }
+
+    private SearchResult search(String indexName, String query, SearchMode mode, SearchOptions options,
+                                float lexicalWeight, float vectorWeight) {
+        int k = options.getK();
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        if (options.getCursor() != null && !options.getCursor().isBlank()) {
+            return nextPage(indexName, options.getCursor(), k);
+        }
+        
         long startTime = System.currentTimeMillis();
+        IndexSnapshot index = indexes.get(indexName);
+        if (index == null) {
+            System.err.println("❌ Index not found: " + indexName);
+            return new SearchResult(query, indexName, List.of(), System.currentTimeMillis() - startTime);
+        }
+        
+        // When paging, rank past the first page so later pages are read from the stored ranking
+        int depth = options.isPaged() ? Math.max(k, Math.min(maxSearchDepth, k * CURSOR_PREFETCH_PAGES)) : k;
+        Ranking ranking = cachedRank(index, query, mode, options.getFilter(), depth, lexicalWeight, vectorWeight);
+        int[] ordinals = ranking.ordinals();
+        float[] scores = ranking.scores();
+        
+        String nextCursor = null;
+        if (options.isPaged() && ordinals.length > k) {
+            nextCursor = storeRanking(new StoredRanking(index, query, ordinals, scores), k);
+        }
+        List<ScoredHit> hits = toHits(index, ordinals, scores, 0, Math.min(k, ordinals.length));
+        
+        long searchTime = System.currentTimeMillis() - startTime;
+        
+        System.out.println("🔍 Search in '" + indexName + "' for '" + query + "'" +
+                         (options.getFilter() != null ? " where " + options.getFilter() : "") +
+                         " found " + hits.size() + " results in " + searchTime + "ms" +
+                         (ranking.cached() ? " (cached)" : ""));
+        
+        SearchResult result = new SearchResult(query, indexName, hits, searchTime);
+        result.setRetrieverTimesMs(ranking.retrieverTimes());
+        result.setCached(ranking.cached());
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+
+    /**
+     * Ranked ordinals and scores of one query, best first, as kept by the query cache
+     */
+    private record Ranking(int[] ordinals, float[] scores, Map<String, Double> retrieverTimes, boolean cached) {
+    }
+
+    /**
+     * Query cache key. The index version changes with every build, so a rebuilt index never
+     * serves rankings of its previous content.
+     */
+    private record QueryKey(String indexName, long version, SearchMode mode, String query, String filter,
+                            int depth, float lexicalWeight, float vectorWeight) {
+    }
+
+    /**
+     * {@link #rank} through the query cache. Keyword and BM25 queries are keyed by their analyzed
+     * terms, so queries differing only in case, punctuation or stop words share an entry. Linear
+     * scans are keyed by the lower-cased words they match as substrings, since "flight" and
+     * "flights" find different chunks there; queries that are embedded are keyed by their
+     * whitespace-normalized text.
+     */
+    private Ranking cachedRank(IndexSnapshot index, String query, SearchMode mode, String filter, int depth,
+                               float lexicalWeight, float vectorWeight) {
+        String normalizedQuery = switch (mode) {
+            case KEYWORD, BM25 -> String.join(" ", index.getInvertedIndex().getAnalyzer().analyze(query));
+            case LINEAR_SCAN -> String.join(" ", query.toLowerCase().split("\\s+"));
+            default -> query.strip().replaceAll("\\s+", " ");
+        };
+        boolean hybrid = mode == SearchMode.HYBRID;
+        QueryKey key = new QueryKey(index.getIndexName(), index.getVersion(), mode, normalizedQuery,
+                filter == null || filter.isBlank() ? null : filter.strip(), depth,
+                hybrid ? lexicalWeight : 0, hybrid ? vectorWeight : 0);
+        
+        Ranking cached = queryCache.getIfPresent(key);
+        if (cached != null) {
+            return new Ranking(cached.ordinals(), cached.scores(), Map.of(), true);
+        }
+        
+        Map<String, Double> retrieverTimes = new LinkedHashMap<>();
+        TopK topK = rank(index, query, mode, filter, depth, lexicalWeight, vectorWeight, retrieverTimes);
+        float[] scores = new float[topK.size()];
+        int[] ordinals = topK.drain(scores);
+        Ranking ranking = new Ranking(ordinals, scores, retrieverTimes, false);
+        queryCache.put(key, ranking);
+        return ranking;
+    }
+
+    private static Cache<QueryKey, Ranking> newQueryCache(long maxBytes) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                // Approximate retained bytes: the key's query text plus the ranked ordinals and scores
+                .weigher((QueryKey key, Ranking ranking) ->
+                        QUERY_CACHE_ENTRY_OVERHEAD + 2 * key.query().length() + 8 * ranking.ordinals().length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Make a new snapshot of an index visible to searches and drop the cached rankings
+     * of its earlier versions; other indexes keep their entries
+     */
+    private void publish(IndexSnapshot snapshot) {
+        indexes.put(snapshot.getIndexName(), snapshot);
+        int before = queryCache.asMap().size();
+        queryCache.asMap().keySet().removeIf(key -> key.indexName().equals(snapshot.getIndexName())
+                && key.version() != snapshot.getVersion());
+        queryCacheInvalidations.add(before - queryCache.asMap().size());
+    }
+
+    /**
+     * Hit, miss and eviction counts of the query cache
+     */
+    public Map<String, Object> getQueryCacheStats() {
+        CacheStats stats = queryCache.stats();
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("entries", queryCache.estimatedSize());
+        cacheStats.put("weightBytes", queryCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        cacheStats.put("maxBytes", queryCacheMaxBytes);
+        cacheStats.put("hits", stats.hitCount());
+        cacheStats.put("misses", stats.missCount());
+        cacheStats.put("hitRate", stats.hitRate());
+        cacheStats.put("evictions", stats.evictionCount());
+        cacheStats.put("invalidations", queryCacheInvalidations.sum());
+        return cacheStats;
+    }
+
+    /**
+     * Top {@code depth} chunks of the index for the query, restricted to a metadata filter
+     */
+    private TopK rank(IndexSnapshot index, String query, SearchMode mode, String filter, int depth,
+                      float lexicalWeight, float vectorWeight, Map<String, Double> retrieverTimes) {
+        ImmutableRoaringBitmap allowed = null;
+        if (filter != null && !filter.isBlank()) {
+            allowed = MetadataFilter.parse(filter).evaluate(index.getMetadataIndex());
+            if (allowed.isEmpty()) {
+                return new TopK(0);
+            }
+        }
         
-        List<DocumentChunk> results = new ArrayList<>();
+        if (mode == SearchMode.HYBRID) {
+            return hybridSearch(index, query, depth, allowed, lexicalWeight, vectorWeight, retrieverTimes);
+        }
+        long retrieverStart = System.nanoTime();
+        TopK topK = retrieve(index, query, mode, depth, allowed);
+        retrieverTimes.put(mode.name(), (System.nanoTime() - retrieverStart) / 1_000_000.0);
+        return topK;
+    }
+
+    /**
+     * A ranking kept for paging: the ordinals and scores of the first search, best first,
+     * with the index snapshot they refer to
+     */
+    private record StoredRanking(IndexSnapshot index, String query, int[] ordinals, float[] scores) {
+    }
+
+    private static Cache<String, StoredRanking> newRankingCache(int ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_STORED_RANKINGS)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Keep a ranking and return the cursor of the page starting at {@code offset}
+     */
+    private String storeRanking(StoredRanking ranking, int offset) {
+        String id = UUID.randomUUID().toString();
+        rankings.put(id, ranking);
+        return encodeCursor(id, offset);
+    }
+
+    /**
+     * Read the page a cursor points at from its stored ranking
+     */
+    private SearchResult nextPage(String indexName, String cursor, int k) {
+        long startTime = System.currentTimeMillis();
+        String id;
+        int offset;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            id = parts[0];
+            offset = Integer.parseInt(parts[1]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
         
-        if (!indexes.containsKey(indexName)) {
+        StoredRanking ranking = rankings.getIfPresent(id);
+        if (ranking == null) {
+            throw new IllegalArgumentException("Cursor expired or unknown; search again without a cursor");
+        }
+        if (!ranking.index().getIndexName().equals(indexName)) {
+            throw new IllegalArgumentException("Cursor belongs to index '" + ranking.index().getIndexName() + "'");
+        }
+        // Cursors come from clients, so the offset may be forged
+        if (offset < 0 || offset > ranking.ordinals().length) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        
+        int end = Math.min(offset + k, ranking.ordinals().length);
+        List<ScoredHit> hits = toHits(ranking.index(), ranking.ordinals(), ranking.scores(), offset, end);
+        String nextCursor = null;
+        if (end < ranking.ordinals().length) {
+            nextCursor = encodeCursor(id, end);
+        } else {
+            rankings.invalidate(id);
+        }
+        
+        SearchResult result = new SearchResult(ranking.query(), indexName, hits, System.currentTimeMillis() - startTime);
+        result.setOffset(offset);
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+
+    private static String encodeCursor(String id, int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Search several indexes at once with BM25
+     */
+    public MultiSearchResult searchAll(Set<String> indexNames, String query, int k) {
+        return searchAll(indexNames, query, k, SearchMode.BM25);
+    }
+
+    /**
+     * Search several indexes concurrently and merge their hits into one ranking. Raw scores
+     * are not comparable across indexes (BM25 depends on each index's term statistics), so
+     * each index's scores are divided by its best score before merging; every hit keeps the
+     * name of its index. Unknown indexes contribute no hits.
+     */
+    public MultiSearchResult searchAll(Set<String> indexNames, String query, int k, SearchMode mode) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        long startTime = System.currentTimeMillis();
+        
+        // Each index on the common pool; the last one on this thread
+        List<String> names = new ArrayList<>(new TreeSet<>(indexNames));
+        List<CompletableFuture<SearchResult>> pending = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size() - 1; i++) {
+            String indexName = names.get(i);
+            pending.add(CompletableFuture.supplyAsync(() -> searchTop(indexName, query, mode, k)));
+        }
+        List<SearchResult> results = new ArrayList<>(names.size());
+        SearchResult last = names.isEmpty() ? null : searchTop(names.get(names.size() - 1), query, mode, k);
+        for (CompletableFuture<SearchResult> future : pending) {
+            results.add(future.join());
+        }
+        if (last != null) {
+            results.add(last);
+        }
+        
+        List<ScoredHit> merged = new ArrayList<>();
+        Map<String, Long> indexTimes = new LinkedHashMap<>();
+        for (SearchResult result : results) {
+            indexTimes.put(result.getIndexName(), result.getSearchTimeMs());
+            List<ScoredHit> hits = result.getHits();
+            float best = hits.isEmpty() || hits.get(0).getScore() <= 0 ? 1 : hits.get(0).getScore();
+            for (ScoredHit hit : hits) {
+                merged.add(new ScoredHit(hit.getIndexName(), hit.getOrdinal(), hit.getScore() / best, hit.getChunk()));
+            }
+        }
+        // Stable sort keeps index name order, then each index's own ranking, on equal scores
+        merged.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+        if (merged.size() > k) {
+            merged = merged.subList(0, k);
+        }
+        
+        long searchTime = System.currentTimeMillis() - startTime;
+        System.out.println("🔍 Search in " + names + " for '" + query + "' found " + merged.size() +
+                         " results in " + searchTime + "ms");
+        
+        return new MultiSearchResult(query, names, merged, indexTimes, searchTime);
+    }
+
+    /**
+     * Top-k of one index without storing a ranking for paging
+     */
+    private SearchResult searchTop(String indexName, String query, SearchMode mode, int k) {
+        long startTime = System.currentTimeMillis();
+        IndexSnapshot index = indexes.get(indexName);
+        if (index == null) {
             System.err.println("❌ Index not found: " + indexName);
-            return new SearchResult(query, indexName, results, System.currentTimeMillis() - startTime);
+            return new SearchResult(query, indexName, List.of(), System.currentTimeMillis() - startTime);
         }
         
-        List<DocumentChunk> indexChunks = indexes.get(indexName);
-        String lowerQuery = query.toLowerCase();
+        Ranking ranking = cachedRank(index, query, mode, null, k, hybridLexicalWeight, hybridVectorWeight);
+        SearchResult result = new SearchResult(query, indexName,
+                toHits(index, ranking.ordinals(), ranking.scores(), 0, ranking.ordinals().length),
+                System.currentTimeMillis() - startTime);
+        result.setRetrieverTimesMs(ranking.retrieverTimes());
+        result.setCached(ranking.cached());
+        return result;
+    }
+
+    /**
+     * Run a batch of keyword queries against one index; results are in query order
+     */
+    public List<SearchResult> searchBatch(String indexName, List<String> queries) {
+        SearchResult[] results = new SearchResult[queries.size()];
+        searchBatch(indexName, queries, SearchMode.KEYWORD, (queryIndex, result) -> results[queryIndex] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Run a batch of queries against one index in parallel and wait for it, handing each
+     * result to {@code onResult} as described in {@link #searchBatchAsync}
+     */
+    public void searchBatch(String indexName, List<String> queries, SearchMode mode,
+                            BiConsumer<Integer, SearchResult> onResult) {
+        try {
+            searchBatchAsync(indexName, queries, mode, onResult).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start a batch of queries against one index on a pool of its own, so a large batch
+     * never occupies the common pool that searches share. Each result is handed to
+     * {@code onResult} with its position in {@code queries} as soon as it is scored, so
+     * results arrive in completion order and possibly from several threads at once.
+     *
+     * For KEYWORD and BM25 each query is analyzed once and the postings of every distinct
+     * term in the batch are read (and for BM25 weighted) once, then shared by all queries
+     * containing the term. Other modes run each query through {@link #search}.
+     *
+     * The future completes when every query is scored, or exceptionally with the first
+     * failure, including one thrown by {@code onResult}. Once it is done, e.g. cancelled
+     * because the caller stopped reading, queries not yet scored are skipped.
+     */
+    public CompletableFuture<Void> searchBatchAsync(String indexName, List<String> queries, SearchMode mode,
+                                                    BiConsumer<Integer, SearchResult> onResult) {
+        CompletableFuture<Void> batch = new CompletableFuture<>();
+        BiConsumer<Integer, SearchResult> deliver = (queryIndex, result) -> {
+            if (batch.isDone()) {
+                return;
+            }
+            try {
+                onResult.accept(queryIndex, result);
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+            }
+        };
         
-        // Simple keyword-based search (simulating vector similarity)
-        String[] queryWords = lowerQuery.split("\\s+");
+        int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        // Parallel streams started on a pool thread fork into that pool
+        pool.execute(() -> {
+            try {
+                runBatch(indexName, queries, mode, deliver, batch);
+                batch.complete(null);
+            } catch (Throwable e) {
+                batch.completeExceptionally(e);
+            } finally {
+                pool.shutdown();
+            }
+        });
+        return batch;
+    }
+
+    private void runBatch(String indexName, List<String> queries, SearchMode mode,
+                          BiConsumer<Integer, SearchResult> onResult, CompletableFuture<Void> batch) {
+        long startTime = System.currentTimeMillis();
         
-        for (DocumentChunk chunk : indexChunks) {
-            String lowerContent = chunk.getContent().toLowerCase();
-            int score = 0;
-            
-            // Calculate relevance score
-            for (String word : queryWords) {
-                if (lowerContent.contains(word)) {
-                    score += (word.length() > 3 ? 2 : 1); // Give more weight to longer words
+        IndexSnapshot index = indexes.get(indexName);
+        if (index == null) {
+            System.err.println("❌ Index not found: " + indexName);
+            for (int i = 0; i < queries.size(); i++) {
+                onResult.accept(i, new SearchResult(queries.get(i), indexName, List.of(), 0));
+            }
+            return;
+        }
+        
+        if (mode == SearchMode.KEYWORD || mode == SearchMode.BM25) {
+            lexicalBatch(index, queries, mode, DEFAULT_TOP_K, onResult, batch);
+        } else {
+            IntStream.range(0, queries.size()).parallel()
+                    .filter(i -> !batch.isDone())
+                    .forEach(i -> onResult.accept(i, searchTop(indexName, queries.get(i), mode, DEFAULT_TOP_K)));
+        }
+        
+        System.out.println("🔍 Batch of " + queries.size() + " " + mode + " queries in '" + indexName + "' " +
+                         (batch.isCancelled() ? "cancelled" : "finished") + " after " +
+                         (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * Postings of one term read once per batch: ordinals, and per-ordinal weights for BM25
+     * (null for keyword scoring, where only the query side weighs the term)
+     */
+    private record SharedPostings(int[] ordinals, float[] weights) {
+    }
+
+    private void lexicalBatch(IndexSnapshot index, List<String> queries, SearchMode mode, int k,
+                              BiConsumer<Integer, SearchResult> onResult, CompletableFuture<Void> batch) {
+        InvertedIndex invertedIndex = index.getInvertedIndex();
+        
+        // Analyze every query once: its term ids and the weight of each
+        int[][] queryTerms = new int[queries.size()][];
+        float[][] queryWeights = new float[queries.size()][];
+        Set<Integer> distinctTerms = new HashSet<>();
+        for (int i = 0; i < queries.size(); i++) {
+            if (mode == SearchMode.BM25) {
+                queryTerms[i] = invertedIndex.queryTermIds(queries.get(i));
+                queryWeights[i] = new float[queryTerms[i].length];
+                Arrays.fill(queryWeights[i], 1);
+            } else {
+                List<String> words = invertedIndex.getAnalyzer().analyze(queries.get(i));
+                queryTerms[i] = queryTermIds(invertedIndex, words);
+                queryWeights[i] = new float[words.size()];
+                for (int w = 0; w < words.size(); w++) {
+                    queryWeights[i][w] = words.get(w).length() > 3 ? 2 : 1; // Give more weight to longer words
+                }
+            }
+            for (int termId : queryTerms[i]) {
+                if (termId >= 0) {
+                    distinctTerms.add(termId);
                 }
             }
+        }
+        
+        // Read each distinct term's postings once for the whole batch
+        Map<Integer, SharedPostings> shared = new ConcurrentHashMap<>();
+        distinctTerms.parallelStream().forEach(termId -> shared.put(termId, new SharedPostings(
+                invertedIndex.getPostings(termId),
+                mode == SearchMode.BM25 ? invertedIndex.getBm25Weights(termId) : null)));
+        
+        IntStream.range(0, queries.size()).parallel().filter(i -> !batch.isDone()).forEach(i -> {
+            long start = System.nanoTime();
+            ScoreAccumulator scores = SCORE_ACCUMULATOR.get();
+            scores.reset(invertedIndex.getDocumentCount());
             
-            if (score > 0) {
-                chunk.addMetadata("relevance_score", score);
-                results.add(chunk);
+            for (int t = 0; t < queryTerms[i].length; t++) {
+                if (queryTerms[i][t] < 0) {
+                    continue;
+                }
+                SharedPostings postings = shared.get(queryTerms[i][t]);
+                float weight = queryWeights[i][t];
+                for (int p = 0; p < postings.ordinals().length; p++) {
+                    scores.add(postings.ordinals()[p], postings.weights() == null ? weight : weight * postings.weights()[p]);
+                }
             }
+            
+            List<ScoredHit> hits = toHits(index, scores.topK(k));
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            SearchResult result = new SearchResult(queries.get(i), index.getIndexName(), hits, (long) millis);
+            result.setRetrieverTimesMs(Map.of(mode.name(), millis));
+            onResult.accept(i, result);
+        });
+    }
+
+    /**
+     * Top-k of a single retriever
+     */
+    private TopK retrieve(IndexSnapshot index, String query, SearchMode mode, int k, ImmutableRoaringBitmap filter) {
+        return switch (mode) {
+            case LINEAR_SCAN -> scanSearch(index, query, k, filter);
+            case VECTOR -> vectorSearch(index, query, k, filter);
+            case BM25 -> bm25Search(index, query, k, filter);
+            case KEYWORD -> keywordSearch(index, query, k, filter);
+            case HYBRID -> throw new IllegalArgumentException("Hybrid search combines other retrievers");
+        };
+    }
+
+    /**
+     * Run BM25 and vector retrieval concurrently and merge their rankings with weighted
+     * reciprocal rank fusion: a chunk scores {@code weight / (rrfK + rank)} per list it is in.
+     * Ranks need no score normalization, so BM25 and cosine scores can be combined as is.
+     */
+    private TopK hybridSearch(IndexSnapshot index, String query, int k, ImmutableRoaringBitmap filter,
+                              float lexicalWeight, float vectorWeight, Map<String, Double> retrieverTimes) {
+        int depth = k * HYBRID_CANDIDATE_FACTOR;
+        
+        // Lexical side on the common pool while this thread embeds the query and searches vectors
+        CompletableFuture<TopK> lexical = null;
+        long[] lexicalNanos = new long[1];
+        if (lexicalWeight > 0) {
+            lexical = CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                TopK result = bm25Search(index, query, depth, filter);
+                lexicalNanos[0] = System.nanoTime() - start;
+                return result;
+            });
+        }
+        
+        TopK dense = null;
+        if (vectorWeight > 0) {
+            long start = System.nanoTime();
+            dense = vectorSearch(index, query, depth, filter);
+            retrieverTimes.put(SearchMode.VECTOR.name(), (System.nanoTime() - start) / 1_000_000.0);
+        }
+        
+        TopK sparse = null;
+        if (lexical != null) {
+            sparse = lexical.join();
+            retrieverTimes.put(SearchMode.BM25.name(), lexicalNanos[0] / 1_000_000.0);
         }
         
-        // Sort by relevance score (descending)
-        results.sort((a, b) -> {
-            Integer scoreA = (Integer) a.getMetadata().getOrDefault("relevance_score", 0);
-            Integer scoreB = (Integer) b.getMetadata().getOrDefault("relevance_score", 0);
-            return scoreB.compareTo(scoreA);
+        long fusionStart = System.nanoTime();
+        ScoreAccumulator scores = SCORE_ACCUMULATOR.get();
+        scores.reset(index.getInvertedIndex().getDocumentCount());
+        addReciprocalRanks(sparse, lexicalWeight, scores);
+        addReciprocalRanks(dense, vectorWeight, scores);
+        TopK fused = scores.topK(k);
+        retrieverTimes.put("fusion", (System.nanoTime() - fusionStart) / 1_000_000.0);
+        return fused;
+    }
+
+    private void addReciprocalRanks(TopK ranking, float weight, ScoreAccumulator scores) {
+        if (ranking == null) {
+            return;
+        }
+        int[] ordinals = ranking.drain(null);
+        for (int rank = 0; rank < ordinals.length; rank++) {
+            scores.add(ordinals[rank], weight / (rrfK + rank + 1));
+        }
+    }
+
+    public float getHybridLexicalWeight() {
+        return hybridLexicalWeight;
+    }
+
+    public float getHybridVectorWeight() {
+        return hybridVectorWeight;
+    }
+
+    /**
+     * Resolve the ordinals of a top-k, best first; nothing in the index is modified
+     */
+    private List<ScoredHit> toHits(IndexSnapshot index, TopK topK) {
+        float[] scores = new float[topK.size()];
+        int[] ordinals = topK.drain(scores);
+        return toHits(index, ordinals, scores, 0, ordinals.length);
+    }
+
+    /**
+     * Resolve the ranked ordinals {@code [from, to)}, e.g. one page of a stored ranking
+     */
+    private List<ScoredHit> toHits(IndexSnapshot index, int[] ordinals, float[] scores, int from, int to) {
+        List<DocumentChunk> indexChunks = index.getChunks();
+        
+        List<ScoredHit> hits = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            hits.add(new ScoredHit(index.getIndexName(), ordinals[i], scores[i], indexChunks.get(ordinals[i])));
+        }
+        return hits;
+    }
+
+    /**
+     * Score only the chunks found in the postings of the query terms, restricted to
+     * {@code filter} when given
+     */
+    private TopK keywordSearch(IndexSnapshot index, String query, int k, ImmutableRoaringBitmap filter) {
+        InvertedIndex invertedIndex = index.getInvertedIndex();
+        List<String> queryWords = invertedIndex.getAnalyzer().analyze(query);
+        int[] termIds = queryTermIds(invertedIndex, queryWords);
+        
+        return fanOut(index, termIds, k, shard -> {
+            ScoreAccumulator scores = SCORE_ACCUMULATOR.get();
+            scores.reset(invertedIndex.getDocumentCount());
+            
+            for (int i = 0; i < termIds.length; i++) {
+                if (termIds[i] >= 0) {
+                    int weight = queryWords.get(i).length() > 3 ? 2 : 1; // Give more weight to longer words
+                    invertedIndex.addPostings(termIds[i], weight, scores, filter, shard.getStart(), shard.getEnd());
+                }
+            }
+            
+            return scores.topK(k);
         });
+    }
+
+    /**
+     * Okapi BM25 over the postings of the distinct query terms, using the term frequencies,
+     * chunk lengths and document frequencies stored at index time
+     */
+    private TopK bm25Search(IndexSnapshot index, String query, int k, ImmutableRoaringBitmap filter) {
+        InvertedIndex invertedIndex = index.getInvertedIndex();
+        int[] termIds = invertedIndex.queryTermIds(query);
         
-        // Limit results
-        if (results.size() > 10) {
-            results = results.subList(0, 10);
+        return fanOut(index, termIds, k, shard -> {
+            ScoreAccumulator scores = SCORE_ACCUMULATOR.get();
+            scores.reset(invertedIndex.getDocumentCount());
+            
+            for (int termId : termIds) {
+                invertedIndex.scoreBm25(termId, scores, filter, shard.getStart(), shard.getEnd());
+            }
+            
+            return scores.topK(k);
+        });
+    }
+
+    /**
+     * Term id of each analyzed query word, -1 for words no chunk contains
+     */
+    private int[] queryTermIds(InvertedIndex invertedIndex, List<String> queryWords) {
+        int[] termIds = new int[queryWords.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = invertedIndex.getTermId(queryWords.get(i));
+        }
+        return termIds;
+    }
+
+    /**
+     * Run a per-shard search on every shard that may contain one of the query terms (on all
+     * of them when {@code termIds} is null) and merge the partial top-k lists. Shards run in
+     * parallel on the common fork-join pool; a single candidate shard runs on this thread.
+     */
+    private TopK fanOut(IndexSnapshot index, int[] termIds, int k, Function<IndexShard, TopK> shardSearch) {
+        List<IndexShard> shards = index.getShards();
+        if (shards.size() == 1) {
+            return shardSearch.apply(shards.get(0));
         }
         
-        long searchTime = System.currentTimeMillis() - startTime;
+        List<IndexShard> candidates = termIds == null
+                ? shards
+                : shards.stream().filter(shard -> shard.mightContainAny(termIds)).toList();
+        index.recordShardFanOut(candidates.size(), shards.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return new TopK(0);
+        }
+        if (candidates.size() == 1) {
+            return shardSearch.apply(candidates.get(0));
+        }
         
-        System.out.println("🔍 Search in '" + indexName + "' for '" + query + 
-                         "' found " + results.size() + " results in " + searchTime + "ms");
+        List<TopK> partials = candidates.parallelStream().map(shardSearch).toList();
+        TopK merged = new TopK(k);
+        for (TopK partial : partials) {
+            float[] scores = new float[partial.size()];
+            int[] ordinals = partial.drain(scores);
+            for (int i = 0; i < ordinals.length; i++) {
+                merged.offer(ordinals[i], scores[i]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Cosine top-k of the query embedding against the chunk vectors of the index
+     */
+    private TopK vectorSearch(IndexSnapshot index, String query, int k, ImmutableRoaringBitmap filter) {
+        long start = System.nanoTime();
+        float[] queryVector = embedder.embed(query);
+        TopK candidates = vectorTopK(index, queryVector, k, filter);
+        index.recordVectorQuery(System.nanoTime() - start);
         
-        return new SearchResult(query, indexName, results, searchTime);
+        // Drop chunks with nothing in common with the query
+        float[] scores = new float[candidates.size()];
+        int[] ordinals = candidates.drain(scores);
+        TopK topK = new TopK(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            if (scores[i] > 0) {
+                topK.offer(ordinals[i], scores[i]);
+            }
+        }
+        return topK;
+    }
+
+    private TopK vectorTopK(IndexSnapshot index, float[] queryVector, int k) {
+        return vectorTopK(index, queryVector, k, null);
+    }
+
+    /**
+     * Walk the HNSW graph when the index has one; otherwise scan the quantized codes and
+     * re-score the best candidates at full precision, or scan the full vectors directly.
+     * A selective filter is scored exactly, since a graph walk would mostly visit
+     * chunks that are filtered out.
+     */
+    private TopK vectorTopK(IndexSnapshot index, float[] queryVector, int k, ImmutableRoaringBitmap filter) {
+        if (filter != null && filter.getCardinality() <= FILTER_EXACT_LIMIT) {
+            return flatTopK(index, queryVector, k, filter);
+        }
+        
+        if (index.getHnswIndex() != null) {
+            return index.getHnswIndex().search(queryVector, k, index.getHnswIndex().getEfSearch(), filter);
+        }
+        
+        QuantizedVectors quantized = index.getQuantizedVectors();
+        if (quantized == null) {
+            return flatTopK(index, queryVector, k, filter);
+        }
+        
+        int[] candidates = quantized.topK(queryVector, k * index.getOptions().getRescoreFactor(), filter).drain(null);
+        TopK rescored = new TopK(Math.min(k, candidates.length));
+        for (int ordinal : candidates) {
+            rescored.offer(ordinal, index.getVectorStore().score(ordinal, queryVector));
+        }
+        return rescored;
+    }
+
+    /**
+     * Exact cosine top-k over the full vectors, each shard scanning its own rows
+     */
+    private TopK flatTopK(IndexSnapshot index, float[] queryVector, int k, ImmutableRoaringBitmap filter) {
+        VectorStore vectorStore = index.getVectorStore();
+        return fanOut(index, null, k,
+                shard -> vectorStore.topK(queryVector, k, filter, shard.getStart(), shard.getEnd()));
+    }
+
+    /**
+     * The original scoring rule, kept for comparison: a full scan that looks for each
+     * lower-cased, whitespace-separated query word as a substring of every chunk's text
+     * (or of the chunks in {@code filter}), without the analyzer or the postings
+     */
+    private TopK scanSearch(IndexSnapshot index, String query, int k, ImmutableRoaringBitmap filter) {
+        List<DocumentChunk> chunks = index.getChunks();
+        String[] queryWords = query.toLowerCase().split("\\s+");
+        
+        // Substrings can match inside any term, so no shard can be skipped
+        return fanOut(index, null, k, shard -> {
+            TopK topK = new TopK(k);
+            PeekableIntIterator ordinals = null;
+            if (filter != null) {
+                ordinals = filter.getIntIterator();
+                ordinals.advanceIfNeeded(shard.getStart());
+            }
+            
+            int ordinal = shard.getStart();
+            while (true) {
+                if (ordinals != null) {
+                    if (!ordinals.hasNext()) {
+                        break;
+                    }
+                    ordinal = ordinals.next();
+                }
+                if (ordinal >= shard.getEnd()) {
+                    break;
+                }
+                String lowerContent = chunkContent(chunks, ordinal).toLowerCase();
+                int score = 0;
+                
+                // Calculate relevance score
+                for (String word : queryWords) {
+                    if (lowerContent.contains(word)) {
+                        score += (word.length() > 3 ? 2 : 1); // Give more weight to longer words
+                    }
+                }
+                
+                if (score > 0) {
+                    topK.offer(ordinal, score);
+                }
+                ordinal++;
+            }
+            
+            return topK;
+        });
+    }
+
+    /**
+     * Text of a chunk without materializing it when the chunks are stored compactly
+     */
+    private static String chunkContent(List<DocumentChunk> chunks, int ordinal) {
+        return chunks instanceof CompactChunkList compact ? compact.getContent(ordinal) : chunks.get(ordinal).getContent();
     }
 
     /**
@@ -161,105 +1295,507 @@ public class DemoVectorDB {
     public Map<String, Object> getIndexStats(String indexName) {
         Map<String, Object> stats = new HashMap<>();
         
-        if (!indexes.containsKey(indexName)) {
+        IndexSnapshot index = indexes.get(indexName);
+        if (index == null) {
             stats.put("error", "Index not found");
             return stats;
         }
         
-        List<DocumentChunk> chunks = indexes.get(indexName);
-        Set<String> files = indexMetadata.get(indexName);
+        List<DocumentChunk> chunks = index.getChunks();
+        Set<String> files = index.getFiles();
         
         stats.put("indexName", indexName);
         stats.put("totalChunks", chunks.size());
         stats.put("totalFiles", files != null ? files.size() : 0);
-        stats.put("documentTypes", chunks.stream()
-                .map(DocumentChunk::getDocumentType)
-                .distinct()
-                .toArray());
+        stats.put("totalTerms", index.getInvertedIndex().getTermCount());
+        stats.put("totalTokens", index.getInvertedIndex().getTokenCount());
+        stats.put("averageChunkTokens", index.getInvertedIndex().getAverageDocumentLength());
+        stats.put("analyzer", index.getInvertedIndex().getAnalyzer().getStages());
+        stats.put("chunking", index.getOptions().getChunking());
+        stats.put("llmTokens", index.getLlmTokens());
+        stats.put("embeddingDimension", index.getVectorStore().getDimension());
+        stats.put("vectorKernel", VectorKernels.describe());
+        stats.put("vectorIndexType", index.getOptions().getVectorIndexType());
+        stats.put("quantization", index.getOptions().getQuantization());
+        stats.put("memory", getMemoryStats(index));
+        stats.put("vectorQueries", index.getVectorQueryCount());
+        stats.put("avgVectorQueryMicros", index.getAverageVectorQueryMicros());
+        stats.put("documentTypes", index.getDocumentTypes().toArray());
+        stats.put("metadataFields", index.getMetadataIndex().getValueCounts());
+        stats.put("storage", index.getVectorStore().isMapped() ? "mapped" : "heap");
+        stats.put("watching", isWatching(indexName));
+        stats.put("shards", getShardStats(index));
+        if (index.getSource() != null && index.getSource().segmentPath() != null) {
+            stats.put("segment", index.getSource().segmentPath().toString());
+        }
+        
+        Map<String, Object> evaluation = evaluateVectorSearch(index);
+        if (index.getHnswIndex() != null) {
+            stats.put("hnsw", getHnswStats(index, evaluation));
+        }
+        if (index.getQuantizedVectors() != null) {
+            stats.put("quantizationRecall", evaluation.get("quantization"));
+        }
         
         return stats;
     }
 
-    private void processFile(String filePath, List<DocumentChunk> chunks) {
+    /**
+     * Ordinal range and term filter size of each shard, and how often queries skipped a shard
+     */
+    private Map<String, Object> getShardStats(IndexSnapshot index) {
+        List<Map<String, Object>> ranges = new ArrayList<>();
+        for (IndexShard shard : index.getShards()) {
+            Map<String, Object> range = new LinkedHashMap<>();
+            range.put("id", shard.getId());
+            range.put("start", shard.getStart());
+            range.put("end", shard.getEnd());
+            range.put("terms", shard.getTermCount());
+            range.put("filterBytes", shard.getFilterBytes());
+            ranges.add(range);
+        }
+        
+        Map<String, Object> shardStats = new LinkedHashMap<>();
+        shardStats.put("count", ranges.size());
+        shardStats.put("searched", index.getShardsSearched());
+        shardStats.put("skipped", index.getShardsSkipped());
+        shardStats.put("ranges", ranges);
+        return shardStats;
+    }
+
+    /**
+     * Heap and off-heap bytes used by the vectors, plus the quantized codes and codebooks
+     */
+    private Map<String, Object> getMemoryStats(IndexSnapshot index) {
+        VectorStore vectors = index.getVectorStore();
+        QuantizedVectors quantized = index.getQuantizedVectors();
+        long fullPrecisionBytes = (long) vectors.size() * vectors.getDimension() * Float.BYTES;
+        
+        Map<String, Object> memory = new LinkedHashMap<>();
+        memory.put("vectorHeapBytes", vectors.getHeapBytes());
+        memory.put("vectorOffHeapBytes", vectors.getOffHeapBytes());
+        memory.put("vectorMappedBytes", vectors.getMappedBytes());
+        memory.put("metadataBytes", index.getMetadataIndex().getSizeInBytes());
+        if (index.getChunks() instanceof CompactChunkList compact) {
+            memory.put("chunkHeapBytes", compact.getHeapBytes());
+            memory.put("chunkOffHeapBytes", compact.getOffHeapBytes());
+            memory.put("chunkArenaBytes", compact.getArenaBytes());
+            memory.put("distinctChunkTexts", compact.getDistinctContentCount());
+            memory.put("duplicateChunks", compact.getDuplicateCount());
+            memory.put("metadataColumns", compact.getMetadataColumns());
+        }
+        if (quantized != null) {
+            long codeBytes = quantized.getCodeBytes();
+            memory.put("codeBytes", codeBytes);
+            memory.put("codebookBytes", quantized.getCodebookBytes());
+            memory.put("heapCompressionRatio", codeBytes == 0 ? 0 : (double) fullPrecisionBytes / codeBytes);
+        }
+        return memory;
+    }
+
+    /**
+     * Recall@10 and latency against the exact scan: for HNSW at a few efSearch values
+     * around the configured one, for quantized indexes with and without re-scoring.
+     * Measured once per number of vectors.
+     */
+    private Map<String, Object> evaluateVectorSearch(IndexSnapshot index) {
+        int vectorCount = index.getVectorStore().size();
+        Map<String, Object> evaluation = index.getVectorEvaluation();
+        if (evaluation != null && Integer.valueOf(vectorCount).equals(evaluation.get("vectors"))) {
+            return evaluation;
+        }
+        
+        evaluation = new LinkedHashMap<>();
+        evaluation.put("vectors", vectorCount);
+        
+        HnswIndex hnswIndex = index.getHnswIndex();
+        if (hnswIndex != null) {
+            int configured = hnswIndex.getEfSearch();
+            SortedSet<Integer> efValues = new TreeSet<>(List.of(
+                    RECALL_K, Math.max(RECALL_K, configured / 2), configured, configured * 2, configured * 4));
+            
+            List<Map<String, Object>> tradeoff = new ArrayList<>();
+            for (int ef : efValues) {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("efSearch", ef);
+                point.putAll(RecallEstimator.measure(index.getVectorStore(),
+                        (query, k) -> hnswIndex.search(query, k, ef), RECALL_K, RECALL_SAMPLE_QUERIES));
+                tradeoff.add(point);
+            }
+            evaluation.put("hnsw", tradeoff);
+        }
+        
+        QuantizedVectors quantized = index.getQuantizedVectors();
+        if (quantized != null) {
+            Map<String, Object> quantizationRecall = new LinkedHashMap<>();
+            quantizationRecall.put("codesOnly", RecallEstimator.measure(index.getVectorStore(),
+                    quantized::topK, RECALL_K, RECALL_SAMPLE_QUERIES));
+            quantizationRecall.put("rescored", RecallEstimator.measure(index.getVectorStore(),
+                    (query, k) -> vectorTopK(index, query, k), RECALL_K, RECALL_SAMPLE_QUERIES));
+            evaluation.put("quantization", quantizationRecall);
+        }
+        
+        index.setVectorEvaluation(evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Graph parameters and the recall-vs-latency table for a few efSearch values
+     */
+    private Map<String, Object> getHnswStats(IndexSnapshot index, Map<String, Object> evaluation) {
+        HnswIndex hnswIndex = index.getHnswIndex();
+        Map<String, Object> hnswStats = new LinkedHashMap<>();
+        hnswStats.put("m", hnswIndex.getM());
+        hnswStats.put("efConstruction", hnswIndex.getEfConstruction());
+        hnswStats.put("efSearch", hnswIndex.getEfSearch());
+        hnswStats.put("nodes", hnswIndex.size());
+        hnswStats.put("topLevel", hnswIndex.getTopLevel());
+        hnswStats.put("averageDegree", hnswIndex.getAverageDegree());
+        hnswStats.put("recallVsLatency", evaluation.get("hnsw"));
+        return hnswStats;
+    }
+
+    /**
+     * Register an index built in code, kept on the heap only
+     */
+    private void putIndex(String indexName, IndexOptions options, List<DocumentChunk> chunks, Set<String> files) {
+        publish(assembleIndex(indexName, options, chunks, files, documentTypes(chunks), estimateLlmTokens(chunks),
+                InvertedIndex.build(chunks, new Analyzer(options.getAnalyzer())), MetadataIndex.build(chunks),
+                embedChunks(chunks, options), null));
+    }
+
+    /**
+     * Embed every chunk into a new vector store, in chunk order
+     */
+    private VectorStore embedChunks(List<DocumentChunk> chunks, IndexOptions options) {
+        float[][] embeddings = new float[chunks.size()][];
+        for (int ordinal = 0; ordinal < chunks.size(); ordinal++) {
+            embeddings[ordinal] = embedder.embed(chunks.get(ordinal).getContent());
+        }
+        return storeVectors(embeddings, options);
+    }
+
+    private VectorStore storeVectors(float[][] embeddings, IndexOptions options) {
+        // Quantized indexes only read full vectors to re-score, so keep those off the heap
+        boolean quantize = options.getQuantization() != QuantizationType.NONE;
+        VectorStore vectorStore = new VectorStore(embedder.getDimension(), embeddings.length, quantize);
+        for (float[] embedding : embeddings) {
+            vectorStore.add(embedding);
+        }
+        return vectorStore;
+    }
+
+    /**
+     * Combine the chunks, postings, metadata bitmaps and vectors of an index with its shards,
+     * and with the HNSW graph and the quantized codes when the options ask for them
+     */
+    private IndexSnapshot assembleIndex(String indexName, IndexOptions options, List<DocumentChunk> chunks,
+                                        Set<String> files, Set<String> documentTypes, long llmTokens,
+                                        InvertedIndex invertedIndex, MetadataIndex metadataIndex,
+                                        VectorStore vectorStore, IndexSnapshot.Source source) {
+        HnswIndex hnswIndex = null;
+        if (options.getVectorIndexType() == VectorIndexType.HNSW) {
+            hnswIndex = new HnswIndex(vectorStore, options.getHnswM(), options.getHnswEfConstruction(), options.getHnswEfSearch());
+            for (int ordinal = 0; ordinal < vectorStore.size(); ordinal++) {
+                hnswIndex.insert(ordinal);
+            }
+        }
+        
+        QuantizedVectors quantizedVectors = switch (options.getQuantization()) {
+            case INT8 -> ScalarQuantizer.train(vectorStore);
+            case PQ -> ProductQuantizer.train(vectorStore, options.getPqSubspaces());
+            case NONE -> null;
+        };
+        
+        int shardCount = options.getShardCount() > 0
+                ? options.getShardCount()
+                : Runtime.getRuntime().availableProcessors();
+        List<IndexShard> shards = IndexShard.split(invertedIndex, shardCount);
+        
+        // Chunks of a mapped segment are already read on demand
+        boolean mapped = source != null && source.segmentPath() != null;
+        if (!mapped && !(chunks instanceof CompactChunkList) && options.getChunkStorage() != ChunkStorageType.OBJECTS) {
+            chunks = CompactChunkList.build(chunks, options.getChunkStorage() == ChunkStorageType.COMPACT_OFF_HEAP);
+        }
+        
+        return new IndexSnapshot(indexName, options, chunks, files, documentTypes, llmTokens,
+                invertedIndex, metadataIndex, vectorStore, hnswIndex, quantizedVectors, shards, source);
+    }
+
+    private Set<String> documentTypes(List<DocumentChunk> chunks) {
+        Set<String> documentTypes = new TreeSet<>();
+        for (DocumentChunk chunk : chunks) {
+            documentTypes.add(chunk.getDocumentType());
+        }
+        return documentTypes;
+    }
+
+    /**
+     * Map every segment in the segment directory; unreadable or incompatible ones are skipped
+     */
+    private void loadSegments() {
+        Path dir = Paths.get(segmentDir);
+        if (!segmentsEnabled || !Files.isDirectory(dir)) {
+            return;
+        }
+        
+        try (Stream<Path> segments = Files.list(dir)) {
+            segments.filter(segment -> segment.getFileName().toString().endsWith(SEGMENT_EXTENSION))
+                    .sorted()
+                    .forEach(segment -> {
+                        long start = System.currentTimeMillis();
+                        try {
+                            IndexSnapshot snapshot = openSegment(segment);
+                            if (snapshot != null) {
+                                publish(snapshot);
+                                updateWatcher(snapshot);
+                                System.out.println("🗺️ Mapped segment " + segment + " as index '" + snapshot.getIndexName() +
+                                                 "' in " + (System.currentTimeMillis() - start) + "ms");
+                            }
+                        } catch (IOException e) {
+                            System.err.println("❌ Error opening segment " + segment + ": " + e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            System.err.println("❌ Error listing segments in " + segmentDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Map a segment and build the in-memory parts (HNSW graph, quantized codes) on top of it;
+     * returns null when it was written with a different embedder
+     */
+    private IndexSnapshot openSegment(Path segmentPath) throws IOException {
+        SegmentReader reader = SegmentReader.open(segmentPath);
+        Map<String, Object> header = reader.getHeader();
+        
+        String indexName = (String) header.get("indexName");
+        if (!embedder.getClass().getName().equals(header.get("embedder"))
+                || embedder.getDimension() != ((Number) header.get("dimension")).intValue()) {
+            System.err.println("⚠️ Skipping segment " + segmentPath + ": written with embedder " +
+                             header.get("embedder") + " (" + header.get("dimension") + " dimensions)");
+            return null;
+        }
+        
+        IndexOptions options = objectMapper.convertValue(header.get("options"), IndexOptions.class);
+        @SuppressWarnings("unchecked")
+        Set<String> files = new HashSet<>((List<String>) header.get("files"));
+        @SuppressWarnings("unchecked")
+        Set<String> documentTypes = new TreeSet<>((List<String>) header.get("documentTypes"));
+        List<IndexSnapshot.FileEntry> fileEntries = header.containsKey("fileEntries")
+                ? objectMapper.convertValue(header.get("fileEntries"), new TypeReference<List<IndexSnapshot.FileEntry>>() { })
+                : null;
+        IndexSnapshot.Source source = new IndexSnapshot.Source((String) header.get("dataPath"),
+                (String) header.get("sourceFingerprint"), segmentPath, fileEntries);
+        
+        List<DocumentChunk> chunks = reader.readChunks();
+        // Counted at build time; older segments are counted once here
+        long llmTokens = header.get("llmTokens") instanceof Number count ? count.longValue() : estimateLlmTokens(chunks);
+        
+        return assembleIndex(indexName, options, chunks, files, documentTypes, llmTokens,
+                reader.readInvertedIndex(new Analyzer(options.getAnalyzer())), reader.readMetadataIndex(),
+                reader.readVectors(), source);
+    }
+
+    private Map<String, Object> segmentHeader(String indexName, IndexOptions options, String dataPath,
+                                              String fingerprint, Set<String> files,
+                                              List<IndexSnapshot.FileEntry> fileEntries, Set<String> documentTypes,
+                                              int chunkCount, long llmTokens) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("indexName", indexName);
+        header.put("dataPath", dataPath);
+        header.put("sourceFingerprint", fingerprint);
+        header.put("options", options);
+        header.put("files", new TreeSet<>(files));
+        header.put("fileEntries", fileEntries);
+        header.put("documentTypes", documentTypes);
+        header.put("chunkCount", chunkCount);
+        header.put("llmTokens", llmTokens);
+        header.put("embedder", embedder.getClass().getName());
+        header.put("dimension", embedder.getDimension());
+        header.put("createdAt", System.currentTimeMillis());
+        return header;
+    }
+
+    private Path segmentPath(String indexName) {
+        return Paths.get(segmentDir, indexName.replaceAll("[^A-Za-z0-9_.-]", "_") + SEGMENT_EXTENSION);
+    }
+
+    /**
+     * Cheap change detector for a data path: file count, total size and latest modification time
+     */
+    private String sourceFingerprint(Path path) throws IOException {
+        long files = 0;
+        long bytes = 0;
+        long lastModified = 0;
+        
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                files++;
+                bytes += Files.size(file);
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return files + ":" + bytes + ":" + lastModified;
+    }
+
+    /**
+     * Chunks read from one source file; built by one worker and merged in file order.
+     * previousOrdinal is the first ordinal of reused chunks, or -1 when the file was parsed.
+     */
+    private record ParsedFile(String path, String fileName, long bytes, long lastModified, String hash,
+                              List<DocumentChunk> chunks, int previousOrdinal) {
+    }
+
+    /**
+     * Reuse the chunks of a file from the previous version when its content hash is
+     * unchanged; size and modification time are checked first to avoid hashing
+     */
+    private ParsedFile scanFile(Path filePath, IndexSnapshot.FileEntry previousEntry, IndexSnapshot previous,
+                                TextChunker chunker) {
+        String fileName = filePath.getFileName().toString();
+        
         try {
-            String content = Files.readString(Paths.get(filePath));
-            String fileName = Paths.get(filePath).getFileName().toString();
+            long bytes = Files.size(filePath);
+            long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            String hash = previousEntry != null && previousEntry.size() == bytes
+                    && previousEntry.lastModified() == lastModified ? previousEntry.hash() : contentHash(filePath);
             
-            if (fileName.endsWith(".json")) {
-                processJsonFile(content, fileName, chunks);
-            } else {
-                processTextFile(content, fileName, chunks);
+            if (previousEntry != null && previousEntry.hash().equals(hash)) {
+                List<DocumentChunk> chunks = new ArrayList<>(previous.getChunks().subList(
+                        previousEntry.firstOrdinal(), previousEntry.firstOrdinal() + previousEntry.chunkCount()));
+                return new ParsedFile(filePath.toString(), fileName, bytes, lastModified, hash, chunks,
+                                      previousEntry.firstOrdinal());
             }
+            return new ParsedFile(filePath.toString(), fileName, bytes, lastModified, hash, processFile(filePath, chunker), -1);
             
         } catch (IOException e) {
             System.err.println("❌ Error processing file " + filePath + ": " + e.getMessage());
+            return new ParsedFile(filePath.toString(), fileName, 0, 0, "", Collections.emptyList(), -1);
         }
     }
 
-    private void processJsonFile(String content, String fileName, List<DocumentChunk> chunks) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(content);
+    private String contentHash(Path filePath) throws IOException {
+        try (InputStream in = Files.newInputStream(filePath)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private List<DocumentChunk> processFile(Path filePath, TextChunker chunker) throws IOException {
+        String fileName = filePath.getFileName().toString();
+        List<DocumentChunk> chunks = new ArrayList<>();
+        
+        if (fileName.endsWith(".json")) {
+            chunks.addAll(processJsonFile(filePath, fileName, chunker));
+        } else {
+            processTextFile(filePath, fileName, chunker, chunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Stream a JSON file: a top-level array is chunked one element at a time as it is
+     * parsed, so only the current element is held in memory. The chunks are returned only
+     * once the whole file has parsed; a malformed file gives none, not the elements before
+     * the error.
+     */
+    private List<DocumentChunk> processJsonFile(Path filePath, String fileName, TextChunker chunker) {
+        List<DocumentChunk> chunks = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(filePath.toFile())) {
+            JsonToken root = parser.nextToken();
             
-            if (jsonNode.isArray()) {
+            if (root == JsonToken.START_ARRAY) {
                 // Handle JSON array
-                for (int i = 0; i < jsonNode.size(); i++) {
-                    String itemContent = objectMapper.writeValueAsString(jsonNode.get(i));
-                    List<String> itemChunks = chunkText(itemContent, DEFAULT_CHUNK_SIZE);
+                int i = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    addItemChunks(chunks, fileName, fileName + "_item_" + i, chunker.chunkJson(objectMapper.readTree(parser)),
+                                  null, i);
+                    i++;
+                }
+            } else if (root == JsonToken.START_OBJECT && chunker.getStrategy() == ChunkingStrategy.STRUCTURED) {
+                // Handle single JSON object: every object in a top-level array field is chunked as an
+                // item, like the elements of a top-level array; the remaining fields form one object
+                ObjectNode fields = objectMapper.createObjectNode();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        fields.set(field, objectMapper.readTree(parser));
+                        continue;
+                    }
                     
-                    for (int j = 0; j < itemChunks.size(); j++) {
-                        String chunkId = fileName + "_item_" + i + "_chunk_" + j;
-                        DocumentChunk chunk = new DocumentChunk(chunkId, itemChunks.get(j), 
-                                                              fileName, j, "json");
-                        chunk.addMetadata("array_index", i);
-                        chunks.add(chunk);
+                    ArrayNode scalars = objectMapper.createArrayNode();
+                    int i = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonNode element = objectMapper.readTree(parser);
+                        if (element.isContainerNode()) {
+                            addItemChunks(chunks, fileName, fileName + "_" + field + "_" + i, chunker.chunkJson(element),
+                                          field, i);
+                        } else {
+                            scalars.add(element);
+                        }
+                        i++;
+                    }
+                    if (!scalars.isEmpty()) {
+                        fields.set(field, scalars);
+                    }
+                }
+                
+                if (!fields.isEmpty()) {
+                    for (String text : chunker.chunkJson(fields)) {
+                        int i = chunks.size();
+                        chunks.add(new DocumentChunk(fileName + "_chunk_" + i, text, fileName, i, "json"));
                     }
                 }
             } else {
-                // Handle single JSON object
-                List<String> textChunks = chunkText(content, DEFAULT_CHUNK_SIZE);
+                // Handle single JSON value: validate it while streaming, then chunk the raw text
+                parser.skipChildren();
+                while (parser.nextToken() != null) {
+                    parser.skipChildren();
+                }
                 
-                for (int i = 0; i < textChunks.size(); i++) {
-                    String chunkId = fileName + "_chunk_" + i;
-                    DocumentChunk chunk = new DocumentChunk(chunkId, textChunks.get(i), 
-                                                          fileName, i, "json");
-                    chunks.add(chunk);
+                try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+                    chunker.chunk(reader, text -> {
+                        int i = chunks.size();
+                        chunks.add(new DocumentChunk(fileName + "_chunk_" + i, text, fileName, i, "json"));
+                    });
                 }
             }
             
         } catch (Exception e) {
             System.err.println("❌ Error processing JSON file " + fileName + ": " + e.getMessage());
+            return List.of();
         }
+        return chunks;
     }
 
-    private void processTextFile(String content, String fileName, List<DocumentChunk> chunks) {
-        List<String> textChunks = chunkText(content, DEFAULT_CHUNK_SIZE);
-        
-        for (int i = 0; i < textChunks.size(); i++) {
-            String chunkId = fileName + "_chunk_" + i;
-            DocumentChunk chunk = new DocumentChunk(chunkId, textChunks.get(i), 
-                                                  fileName, i, "document");
+    private void addItemChunks(List<DocumentChunk> chunks, String fileName, String itemId, List<String> itemChunks,
+                               String arrayField, int arrayIndex) {
+        for (int j = 0; j < itemChunks.size(); j++) {
+            DocumentChunk chunk = new DocumentChunk(itemId + "_chunk_" + j, itemChunks.get(j), fileName, j, "json");
+            if (arrayField != null) {
+                chunk.addMetadata("array_field", arrayField);
+            }
+            chunk.addMetadata("array_index", arrayIndex);
             chunks.add(chunk);
         }
     }
 
-    private List<String> chunkText(String text, int chunkSize) {
-        List<String> chunks = new ArrayList<>();
-        
-        if (text.length() <= chunkSize) {
-            chunks.add(text);
-            return chunks;
+    private void processTextFile(Path filePath, String fileName, TextChunker chunker, List<DocumentChunk> chunks)
+            throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+            chunker.chunk(reader, text -> {
+                int i = chunks.size();
+                chunks.add(new DocumentChunk(fileName + "_chunk_" + i, text, fileName, i, "document"));
+            });
         }
-        
-        for (int i = 0; i < text.length(); i += chunkSize - CHUNK_OVERLAP) {
-            int endIndex = Math.min(i + chunkSize, text.length());
-            chunks.add(text.substring(i, endIndex));
-            
-            if (endIndex >= text.length()) {
-                break;
-            }
-        }
-        
-        return chunks;
     }
 
     private void createSampleData() {
@@ -283,8 +1819,7 @@ public class DemoVectorDB {
             flightChunks.add(chunk);
         }
         
-        indexes.put("sample_flights", flightChunks);
-        indexMetadata.put("sample_flights", Set.of("sample_flights.txt"));
+        putIndex("sample_flights", new IndexOptions(), flightChunks, Set.of("sample_flights.txt"));
         
         // Sample JSON data
         List<DocumentChunk> jsonChunks = new ArrayList<>();
@@ -303,15 +1838,14 @@ public class DemoVectorDB {
             jsonChunks.add(chunk);
         }
         
-        indexes.put("sample_airlines", jsonChunks);
-        indexMetadata.put("sample_airlines", Set.of("sample_airlines.json"));
+        putIndex("sample_airlines", new IndexOptions(), jsonChunks, Set.of("sample_airlines.json"));
     }
 
     private void loadWorkspaceData() {
         // Try to load flight_records_100.json from workspace root
         String workspaceFile = "flight_records_100.json";
         if (Files.exists(Paths.get(workspaceFile))) {
-            createIndex("flight_records", workspaceFile);
+            openOrCreateIndex("flight_records", workspaceFile);
         }
     }
 
@@ -319,12 +1853,12 @@ public class DemoVectorDB {
         System.out.println("\n📊 DemoVectorDB Index Summary:");
         System.out.println("================================");
         
-        for (String indexName : indexes.keySet()) {
-            Map<String, Object> stats = getIndexStats(indexName);
-            System.out.println("🔸 Index: " + indexName);
-            System.out.println("   - Chunks: " + stats.get("totalChunks"));
-            System.out.println("   - Files: " + stats.get("totalFiles"));
-            System.out.println("   - Types: " + Arrays.toString((Object[]) stats.get("documentTypes")));
+        // Read from the snapshots rather than getIndexStats, which also measures vector recall
+        for (IndexSnapshot index : indexes.values()) {
+            System.out.println("🔸 Index: " + index.getIndexName());
+            System.out.println("   - Chunks: " + index.getChunks().size());
+            System.out.println("   - Files: " + (index.getFiles() != null ? index.getFiles().size() : 0));
+            System.out.println("   - Types: " + Arrays.toString(index.getDocumentTypes().toArray()));
         }
         
         System.out.println("================================\n");
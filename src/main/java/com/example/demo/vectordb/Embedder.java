@@ -0,0 +1,18 @@
+package com.example.demo.vectordb;
+
+/**
+ * Turns chunk and query text into dense vectors. Declare a bean of this type
+ * to replace the default {@link HashingEmbedder}.
+ */
+public interface Embedder {
+
+    /**
+     * Number of components in every vector returned by {@link #embed(String)}
+     */
+    int getDimension();
+
+    /**
+     * Embed the text into a new vector of length {@link #getDimension()}
+     */
+    float[] embed(String text);
+}
@@ -0,0 +1,67 @@
+package com.example.demo.vectordb;
+
+/**
+ * Local, deterministic embedder based on the hashing trick. Every term and
+ * every character trigram of a term is hashed to a signed bucket of the
+ * vector, so the same text always gives the same vector without a model or
+ * a network call. Vectors are L2-normalized.
+ */
+public class HashingEmbedder implements Embedder {
+
+    public static final int DEFAULT_DIMENSION = 256;
+
+    private static final float TERM_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimension;
+
+    public HashingEmbedder() {
+        this(DEFAULT_DIMENSION);
+    }
+
+    public HashingEmbedder(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+
+        for (String term : InvertedIndex.tokenize(text)) {
+            addFeature(vector, term, TERM_WEIGHT);
+
+            // Trigrams of the padded term let related word forms share buckets
+            String padded = "#" + term + "#";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                addFeature(vector, padded.substring(i, i + 3), TRIGRAM_WEIGHT);
+            }
+        }
+
+        VectorKernels.normalize(vector);
+        return vector;
+    }
+
+    private void addFeature(float[] vector, String feature, float weight) {
+        int hash = fnv1a(feature);
+        int bucket = (hash & 0x7fffffff) % dimension;
+        // Use a high bit for the sign so collisions tend to cancel out
+        vector[bucket] += (hash & 0x80000000) == 0 ? weight : -weight;
+    }
+
+    private static int fnv1a(String value) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical Navigable Small World graph over the rows of a {@link VectorStore}.
+ *
+ * Inserts are serialized by a lock, while searches take no lock at all: each
+ * neighbour list is an immutable array replaced as a whole, and a node is
+ * published before any neighbour list points at it. Searches can therefore
+ * run concurrently with an incremental build and only see complete nodes.
+ */
+public class HnswIndex {
+
+    private final VectorStore vectors;
+    private final int m;
+    private final int maxLevel0Connections;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile AtomicReferenceArray<Node> nodes = new AtomicReferenceArray<>(16);
+    private volatile int size;
+    private volatile int entryPoint = -1;
+    private volatile int topLevel = -1;
+
+    private static final class Node {
+        final AtomicReferenceArray<int[]> neighbors;
+
+        Node(int level) {
+            neighbors = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                neighbors.set(l, new int[0]);
+            }
+        }
+
+        int level() {
+            return neighbors.length() - 1;
+        }
+    }
+
+    private record Candidate(int ordinal, float score) {
+    }
+
+    public HnswIndex(VectorStore vectors, int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW M must be at least 2: " + m);
+        }
+        this.vectors = vectors;
+        this.m = m;
+        this.maxLevel0Connections = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    /**
+     * Link an ordinal already stored in the vector store into the graph
+     */
+    public void insert(int ordinal) {
+        writeLock.lock();
+        try {
+            float[] query = vectors.get(ordinal);
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            Node node = new Node(level);
+
+            AtomicReferenceArray<Node> current = nodes;
+            if (ordinal >= current.length()) {
+                AtomicReferenceArray<Node> grown = new AtomicReferenceArray<>(Math.max(current.length() * 2, ordinal + 1));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                nodes = grown;
+                current = grown;
+            }
+            current.set(ordinal, node);
+            size++;
+
+            if (entryPoint < 0) {
+                entryPoint = ordinal;
+                topLevel = level;
+                return;
+            }
+
+            int nearest = entryPoint;
+            for (int l = topLevel; l > level; l--) {
+                nearest = greedyClosest(query, nearest, l);
+            }
+
+            for (int l = Math.min(level, topLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(query, nearest, efConstruction, l, null);
+                int maxConnections = l == 0 ? maxLevel0Connections : m;
+                int[] selected = closest(candidates, m, ordinal);
+                node.neighbors.set(l, selected);
+
+                for (int neighbor : selected) {
+                    connect(neighbor, ordinal, l, maxConnections);
+                }
+                nearest = candidates.get(0).ordinal();
+            }
+
+            if (level > topLevel) {
+                topLevel = level;
+                entryPoint = ordinal;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Approximate top-k for a normalized query vector
+     */
+    public TopK search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    public TopK search(float[] query, int k, int ef) {
+        return search(query, k, ef, null);
+    }
+
+    /**
+     * Approximate top-k among the ordinals in {@code filter}. The graph is still walked
+     * through filtered-out nodes, which only never enter the results.
+     */
+    public TopK search(float[] query, int k, int ef, ImmutableRoaringBitmap filter) {
+        TopK topK = new TopK(k);
+        int start = entryPoint;
+        if (start < 0) {
+            return topK;
+        }
+
+        int nearest = start;
+        for (int l = topLevel; l > 0; l--) {
+            nearest = greedyClosest(query, nearest, l);
+        }
+
+        for (Candidate candidate : searchLayer(query, nearest, Math.max(ef, k), 0, filter)) {
+            topK.offer(candidate.ordinal(), candidate.score());
+        }
+        return topK;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    public int getTopLevel() {
+        return topLevel;
+    }
+
+    /**
+     * Average number of links per node on the bottom layer
+     */
+    public double getAverageDegree() {
+        AtomicReferenceArray<Node> current = nodes;
+        long links = 0;
+        int counted = 0;
+        for (int i = 0; i < current.length(); i++) {
+            Node node = current.get(i);
+            if (node != null) {
+                links += node.neighbors.get(0).length;
+                counted++;
+            }
+        }
+        return counted == 0 ? 0 : (double) links / counted;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int best = start;
+        float bestScore = vectors.score(best, query);
+        boolean improved = true;
+
+        while (improved) {
+            improved = false;
+            for (int neighbor : neighbors(best, level)) {
+                float score = vectors.score(neighbor, query);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one layer; returns up to {@code ef} candidates in {@code filter}
+     * (any when null), best first
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level, ImmutableRoaringBitmap filter) {
+        BitSet visited = new BitSet();
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Float.compare(b.score(), a.score()));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+
+        Candidate first = new Candidate(start, vectors.score(start, query));
+        visited.set(start);
+        frontier.add(first);
+        if (filter == null || filter.contains(start)) {
+            results.add(first);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+
+            for (int neighbor : neighbors(current.ordinal(), level)) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+
+                float score = vectors.score(neighbor, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbor, score);
+                    frontier.add(candidate);
+                    if (filter == null || filter.contains(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return sorted;
+    }
+
+    private int[] neighbors(int ordinal, int level) {
+        Node node = nodes.get(ordinal);
+        return node == null || level > node.level() ? new int[0] : node.neighbors.get(level);
+    }
+
+    private int[] closest(List<Candidate> candidates, int count, int exclude) {
+        return candidates.stream()
+                .filter(candidate -> candidate.ordinal() != exclude)
+                .limit(count)
+                .mapToInt(Candidate::ordinal)
+                .toArray();
+    }
+
+    /**
+     * Add a back link, pruning to the closest {@code maxConnections} neighbours when full
+     */
+    private void connect(int from, int to, int level, int maxConnections) {
+        Node node = nodes.get(from);
+        int[] current = node.neighbors.get(level);
+        int[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = to;
+
+        if (updated.length > maxConnections) {
+            float[] base = vectors.get(from);
+            List<Candidate> ranked = new ArrayList<>(updated.length);
+            for (int neighbor : updated) {
+                ranked.add(new Candidate(neighbor, vectors.score(neighbor, base)));
+            }
+            ranked.sort((a, b) -> Float.compare(b.score(), a.score()));
+            updated = closest(ranked, maxConnections, from);
+        }
+
+        node.neighbors.set(level, updated);
+    }
+}
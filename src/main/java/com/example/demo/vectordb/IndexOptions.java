@@ -0,0 +1,186 @@
+package com.example.demo.vectordb;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Per-index settings passed to {@link DemoVectorDB#createIndex(String, String, IndexOptions)}.
+ */
+public class IndexOptions {
+
+    private VectorIndexType vectorIndexType = VectorIndexType.FLAT;
+    private int hnswM = 16;
+    private int hnswEfConstruction = 100;
+    private int hnswEfSearch = 50;
+    private QuantizationType quantization = QuantizationType.NONE;
+    private int pqSubspaces = 32;
+    private int rescoreFactor = 4;
+    private boolean watch = false;
+    private int shardCount = 1;
+    private List<AnalyzerStage> analyzer = new ArrayList<>(EnumSet.allOf(AnalyzerStage.class));
+    private ChunkingStrategy chunking = ChunkingStrategy.STRUCTURED;
+    private int chunkTokens = 256;
+    private int chunkOverlapTokens = 32;
+    private ChunkStorageType chunkStorage = ChunkStorageType.OBJECTS;
+
+    public VectorIndexType getVectorIndexType() {
+        return vectorIndexType;
+    }
+
+    public void setVectorIndexType(VectorIndexType vectorIndexType) {
+        this.vectorIndexType = vectorIndexType;
+    }
+
+    public int getHnswM() {
+        return hnswM;
+    }
+
+    public void setHnswM(int hnswM) {
+        this.hnswM = hnswM;
+    }
+
+    public int getHnswEfConstruction() {
+        return hnswEfConstruction;
+    }
+
+    public void setHnswEfConstruction(int hnswEfConstruction) {
+        this.hnswEfConstruction = hnswEfConstruction;
+    }
+
+    public int getHnswEfSearch() {
+        return hnswEfSearch;
+    }
+
+    public void setHnswEfSearch(int hnswEfSearch) {
+        this.hnswEfSearch = hnswEfSearch;
+    }
+
+    public QuantizationType getQuantization() {
+        return quantization;
+    }
+
+    public void setQuantization(QuantizationType quantization) {
+        this.quantization = quantization;
+    }
+
+    public int getPqSubspaces() {
+        return pqSubspaces;
+    }
+
+    public void setPqSubspaces(int pqSubspaces) {
+        this.pqSubspaces = pqSubspaces;
+    }
+
+    /**
+     * How many candidates per requested result are taken from the quantized codes
+     * and re-scored at full precision
+     */
+    public int getRescoreFactor() {
+        return rescoreFactor;
+    }
+
+    public void setRescoreFactor(int rescoreFactor) {
+        this.rescoreFactor = rescoreFactor;
+    }
+
+    /**
+     * Re-index changed files automatically when the data path changes
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Number of ordinal ranges a query fans out over in parallel; 0 means one per core
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Stages of the analyzer used for both chunks and queries
+     */
+    public List<AnalyzerStage> getAnalyzer() {
+        return analyzer;
+    }
+
+    public void setAnalyzer(List<AnalyzerStage> analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * How source files are cut into chunks
+     */
+    public ChunkingStrategy getChunking() {
+        return chunking;
+    }
+
+    public void setChunking(ChunkingStrategy chunking) {
+        this.chunking = chunking;
+    }
+
+    /**
+     * Chunk size in estimated LLM tokens
+     */
+    public int getChunkTokens() {
+        return chunkTokens;
+    }
+
+    public void setChunkTokens(int chunkTokens) {
+        this.chunkTokens = chunkTokens;
+    }
+
+    /**
+     * Estimated tokens repeated from the end of a chunk at the start of the next one
+     * when the chunk was cut for size
+     */
+    public int getChunkOverlapTokens() {
+        return chunkOverlapTokens;
+    }
+
+    public void setChunkOverlapTokens(int chunkOverlapTokens) {
+        this.chunkOverlapTokens = chunkOverlapTokens;
+    }
+
+    /**
+     * How chunks are kept when the index is served from memory. Ignored for
+     * segment-backed indexes, which read chunks from the mapped segment and
+     * store identical chunk texts there once.
+     */
+    public ChunkStorageType getChunkStorage() {
+        return chunkStorage;
+    }
+
+    public void setChunkStorage(ChunkStorageType chunkStorage) {
+        this.chunkStorage = chunkStorage;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexOptions{" +
+                "vectorIndexType=" + vectorIndexType +
+                ", hnswM=" + hnswM +
+                ", hnswEfConstruction=" + hnswEfConstruction +
+                ", hnswEfSearch=" + hnswEfSearch +
+                ", quantization=" + quantization +
+                ", pqSubspaces=" + pqSubspaces +
+                ", rescoreFactor=" + rescoreFactor +
+                ", watch=" + watch +
+                ", shardCount=" + shardCount +
+                ", analyzer=" + analyzer +
+                ", chunking=" + chunking +
+                ", chunkTokens=" + chunkTokens +
+                ", chunkOverlapTokens=" + chunkOverlapTokens +
+                ", chunkStorage=" + chunkStorage +
+                '}';
+    }
+}
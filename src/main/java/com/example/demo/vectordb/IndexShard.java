@@ -0,0 +1,124 @@
+package com.example.demo.vectordb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contiguous range of chunk ordinals searched as one task of a query fan-out.
+ * Shards share the index's postings and vectors and only bound the ordinals
+ * they score; a bloom filter of the term ids occurring in the range lets a
+ * lexical query skip shards that cannot match any of its terms.
+ */
+public class IndexShard {
+
+    private final int id;
+    private final int start;
+    private final int end;
+    private final int termCount;
+    private final BloomFilter terms;
+
+    public IndexShard(int id, int start, int end, int termCount, BloomFilter terms) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.termCount = termCount;
+        this.terms = terms;
+    }
+
+    /**
+     * Split the ordinals of an index into up to {@code shardCount} equal ranges and
+     * record the terms of each range from the postings
+     */
+    public static List<IndexShard> split(InvertedIndex invertedIndex, int shardCount) {
+        int documentCount = invertedIndex.getDocumentCount();
+        int count = Math.max(1, Math.min(shardCount, documentCount));
+        int shardSize = Math.max(1, (documentCount + count - 1) / count);
+        count = Math.max(1, (documentCount + shardSize - 1) / shardSize);
+        if (count == 1) {
+            // Nothing to skip, so no filter
+            return List.of(new IndexShard(0, 0, documentCount, invertedIndex.getTermCount(), null));
+        }
+
+        // Distinct terms per shard size the filters; postings are sorted, so a term's
+        // shards come in order and each is counted once
+        int[] termCounts = new int[count];
+        List<int[]> termShards = new ArrayList<>(invertedIndex.getTermCount());
+        for (int termId = 0; termId < invertedIndex.getTermCount(); termId++) {
+            int[] postings = invertedIndex.getPostings(termId);
+            int[] shards = new int[postings.length];
+            int distinct = 0;
+            for (int ordinal : postings) {
+                int shard = ordinal / shardSize;
+                if (distinct == 0 || shards[distinct - 1] != shard) {
+                    shards[distinct++] = shard;
+                    termCounts[shard]++;
+                }
+            }
+            termShards.add(Arrays.copyOf(shards, distinct));
+        }
+
+        BloomFilter[] filters = new BloomFilter[count];
+        for (int shard = 0; shard < count; shard++) {
+            filters[shard] = new BloomFilter(termCounts[shard]);
+        }
+        for (int termId = 0; termId < termShards.size(); termId++) {
+            for (int shard : termShards.get(termId)) {
+                filters[shard].add(termId);
+            }
+        }
+
+        List<IndexShard> shards = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int start = shard * shardSize;
+            shards.add(new IndexShard(shard, start, Math.min(documentCount, start + shardSize),
+                                      termCounts[shard], filters[shard]));
+        }
+        return shards;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * First ordinal of the shard
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * One past the last ordinal of the shard
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    public long getFilterBytes() {
+        return terms == null ? 0 : terms.getSizeInBytes();
+    }
+
+    /**
+     * False only if no chunk of the shard contains any of the term ids
+     */
+    public boolean mightContainAny(int[] termIds) {
+        if (terms == null) {
+            return true;
+        }
+        for (int termId : termIds) {
+            if (termId >= 0 && terms.mightContain(termId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
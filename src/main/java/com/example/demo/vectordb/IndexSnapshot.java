@@ -0,0 +1,183 @@
+package com.example.demo.vectordb;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Everything built for one index: its chunks, the source files, the inverted
+ * index, the metadata bitmaps, the embeddings, the shards searched in
+ * parallel and, when configured, the HNSW graph and the quantized codes.
+ * Ordinals are shared by all of them.
+ */
+public class IndexSnapshot {
+
+    /**
+     * Where an index was built from and, when persisted, the segment holding it
+     */
+    public record Source(String dataPath, String fingerprint, Path segmentPath, List<FileEntry> fileEntries) {
+    }
+
+    /**
+     * One source file of an index: its content hash and the ordinals of its chunks,
+     * used to re-chunk only changed files on refresh
+     */
+    public record FileEntry(String path, String hash, long size, long lastModified, int firstOrdinal, int chunkCount) {
+    }
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version = VERSIONS.incrementAndGet();
+    private final String indexName;
+    private final IndexOptions options;
+    private final List<DocumentChunk> chunks;
+    private final Set<String> files;
+    private final Set<String> documentTypes;
+    private final long llmTokens;
+    private final InvertedIndex invertedIndex;
+    private final MetadataIndex metadataIndex;
+    private final VectorStore vectorStore;
+    private final HnswIndex hnswIndex;
+    private final QuantizedVectors quantizedVectors;
+    private final List<IndexShard> shards;
+    private final Source source;
+
+    private final LongAdder vectorQueries = new LongAdder();
+    private final LongAdder vectorQueryNanos = new LongAdder();
+    private final LongAdder shardsSearched = new LongAdder();
+    private final LongAdder shardsSkipped = new LongAdder();
+    private volatile Map<String, Object> vectorEvaluation;
+
+    public IndexSnapshot(String indexName, IndexOptions options, List<DocumentChunk> chunks, Set<String> files,
+                         Set<String> documentTypes, long llmTokens, InvertedIndex invertedIndex,
+                         MetadataIndex metadataIndex,
+                         VectorStore vectorStore, HnswIndex hnswIndex, QuantizedVectors quantizedVectors,
+                         List<IndexShard> shards, Source source) {
+        this.indexName = indexName;
+        this.options = options;
+        this.chunks = chunks;
+        this.files = files;
+        this.documentTypes = documentTypes;
+        this.llmTokens = llmTokens;
+        this.invertedIndex = invertedIndex;
+        this.metadataIndex = metadataIndex;
+        this.vectorStore = vectorStore;
+        this.hnswIndex = hnswIndex;
+        this.quantizedVectors = quantizedVectors;
+        this.shards = shards;
+        this.source = source;
+    }
+
+    /**
+     * Increases with every snapshot built or loaded, so a new build of an index never
+     * shares the version of an older one
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public IndexOptions getOptions() {
+        return options;
+    }
+
+    public List<DocumentChunk> getChunks() {
+        return chunks;
+    }
+
+    public Set<String> getFiles() {
+        return files;
+    }
+
+    public Set<String> getDocumentTypes() {
+        return documentTypes;
+    }
+
+    /**
+     * Estimated LLM tokens of all chunk texts, counted once when the index was built
+     */
+    public long getLlmTokens() {
+        return llmTokens;
+    }
+
+    public InvertedIndex getInvertedIndex() {
+        return invertedIndex;
+    }
+
+    public MetadataIndex getMetadataIndex() {
+        return metadataIndex;
+    }
+
+    public VectorStore getVectorStore() {
+        return vectorStore;
+    }
+
+    /**
+     * HNSW graph, or null when the index uses flat vector search
+     */
+    public HnswIndex getHnswIndex() {
+        return hnswIndex;
+    }
+
+    /**
+     * Quantized codes, or null when the index keeps only full-precision vectors
+     */
+    public QuantizedVectors getQuantizedVectors() {
+        return quantizedVectors;
+    }
+
+    /**
+     * Ordinal ranges searched in parallel; a single shard covers the whole index
+     */
+    public List<IndexShard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Build source and segment, or null for indexes created in code such as the samples
+     */
+    public Source getSource() {
+        return source;
+    }
+
+    public void recordVectorQuery(long nanos) {
+        vectorQueries.increment();
+        vectorQueryNanos.add(nanos);
+    }
+
+    public long getVectorQueryCount() {
+        return vectorQueries.sum();
+    }
+
+    public double getAverageVectorQueryMicros() {
+        long count = vectorQueries.sum();
+        return count == 0 ? 0 : vectorQueryNanos.sum() / 1000.0 / count;
+    }
+
+    public void recordShardFanOut(int searched, int skipped) {
+        shardsSearched.add(searched);
+        shardsSkipped.add(skipped);
+    }
+
+    public long getShardsSearched() {
+        return shardsSearched.sum();
+    }
+
+    public long getShardsSkipped() {
+        return shardsSkipped.sum();
+    }
+
+    public Map<String, Object> getVectorEvaluation() {
+        return vectorEvaluation;
+    }
+
+    public void setVectorEvaluation(Map<String, Object> vectorEvaluation) {
+        this.vectorEvaluation = vectorEvaluation;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.vectordb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the data path of one index and calls back once a burst of file
+ * events has settled. The callback decides from content hashes what actually
+ * changed, so overflowed or duplicate events only cost a cheap re-check.
+ */
+public class IndexWatcher implements Closeable {
+
+    /** Events closer together than this are handled as one change */
+    private static final long QUIET_PERIOD_MS = 500;
+
+    private final String indexName;
+    private final Path root;
+    private final Path singleFile;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public IndexWatcher(String indexName, Path dataPath, Runnable onChange) throws IOException {
+        this.indexName = indexName;
+        this.onChange = onChange;
+        Path path = dataPath.toAbsolutePath().normalize();
+        // A single-file index watches its directory and ignores events for other files
+        this.singleFile = Files.isDirectory(path) ? null : path.getFileName();
+        this.root = singleFile == null ? path : path.getParent();
+        this.watchService = root.getFileSystem().newWatchService();
+        this.thread = new Thread(this::run, "index-watcher-" + indexName);
+        this.thread.setDaemon(true);
+
+        if (singleFile == null) {
+            registerTree(root);
+        } else {
+            root.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+    }
+
+    public void start() {
+        thread.start();
+        System.out.println("👀 Watching " + root + (singleFile != null ? "/" + singleFile : "") +
+                         " for index '" + indexName + "'");
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = handle(watchService.take());
+                // Wait for the burst to settle before re-indexing
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= handle(key);
+                }
+                if (changed) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("❌ Error re-indexing '" + indexName + "': " + e.getMessage());
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            System.out.println("🛑 Stopped watching index '" + indexName + "'");
+        }
+    }
+
+    private boolean handle(WatchKey key) {
+        boolean changed = false;
+        Path dir = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (singleFile != null) {
+                changed |= name.equals(singleFile);
+                continue;
+            }
+            Path child = dir.resolve(name);
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                registerQuietly(child);
+            }
+            changed = true;
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            for (Path subdir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                subdir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void registerQuietly(Path dir) {
+        try {
+            registerTree(dir);
+        } catch (IOException e) {
+            System.err.println("❌ Error watching " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Term-to-postings index for one index's chunks. A posting list holds the
+ * positions (ordinals) of the chunks containing the term, in ascending order,
+ * with the number of times the term occurs in each chunk alongside.
+ *
+ * Terms come from the index's {@link Analyzer} and are numbered by the term
+ * dictionary. All posting lists are stored back to back in one int buffer,
+ * which is either a heap array or a region of a memory-mapped segment; each
+ * term id has the offset and length of its list. Term frequencies use the
+ * same offsets in a parallel buffer, and the token count of every chunk is
+ * kept for BM25 length normalization.
+ */
+public class InvertedIndex {
+
+    /** BM25 term frequency saturation */
+    public static final float BM25_K1 = 1.2f;
+
+    /** BM25 document length normalization */
+    public static final float BM25_B = 0.75f;
+
+    private static final int[] NO_POSTINGS = new int[0];
+
+    // Walk the filter rather than the postings when it is this many times smaller
+    private static final int FILTER_WALK_RATIO = 8;
+
+    private final Analyzer analyzer;
+    private final Map<String, Integer> termIds;
+    private final long[] references;
+    private final IntBuffer postings;
+    private final IntBuffer frequencies;
+    private final IntBuffer documentLengths;
+    private final int documentCount;
+    private final long tokenCount;
+    private final float averageDocumentLength;
+
+    /**
+     * Token count of one chunk and how often each analyzed term occurs in it, as produced by {@link #countTerms}
+     */
+    public record TermCounts(int length, Map<String, Integer> frequencies) {
+    }
+
+    /**
+     * @param references      offset and length of the posting list of each term id, see {@link #reference}
+     * @param documentLengths analyzed token count of each chunk, by ordinal
+     */
+    public InvertedIndex(Analyzer analyzer, Map<String, Integer> termIds, long[] references, IntBuffer postings,
+                         IntBuffer frequencies, IntBuffer documentLengths) {
+        this.analyzer = analyzer;
+        this.termIds = termIds;
+        this.references = references;
+        this.postings = postings;
+        this.frequencies = frequencies;
+        this.documentLengths = documentLengths;
+        this.documentCount = documentLengths.limit();
+        long total = 0;
+        for (int i = 0; i < documentCount; i++) {
+            total += documentLengths.get(i);
+        }
+        this.tokenCount = total;
+        this.averageDocumentLength = documentCount == 0 ? 0 : (float) total / documentCount;
+    }
+
+    /**
+     * Build the postings for the given chunks with the standard analyzer; ordinals are list positions
+     */
+    public static InvertedIndex build(List<DocumentChunk> chunks) {
+        return build(chunks, Analyzer.standard());
+    }
+
+    public static InvertedIndex build(List<DocumentChunk> chunks, Analyzer analyzer) {
+        List<TermCounts> chunkTerms = new ArrayList<>(chunks.size());
+        for (DocumentChunk chunk : chunks) {
+            chunkTerms.add(countTerms(analyzer, chunk.getContent()));
+        }
+        return fromTerms(analyzer, chunkTerms);
+    }
+
+    /**
+     * Build the postings from already analyzed chunks (see {@link #countTerms}),
+     * e.g. analyzed in parallel; entry {@code i} holds the terms of ordinal {@code i}
+     */
+    public static InvertedIndex fromTerms(Analyzer analyzer, List<TermCounts> chunkTerms) {
+        Map<String, Integer> termIds = new HashMap<>();
+        List<List<Integer>> building = new ArrayList<>();
+        int totalPostings = 0;
+
+        int[] documentLengths = new int[chunkTerms.size()];
+        for (int ordinal = 0; ordinal < chunkTerms.size(); ordinal++) {
+            TermCounts counts = chunkTerms.get(ordinal);
+            documentLengths[ordinal] = counts.length();
+            for (Map.Entry<String, Integer> entry : counts.frequencies().entrySet()) {
+                Integer termId = termIds.get(entry.getKey());
+                if (termId == null) {
+                    termId = termIds.size();
+                    termIds.put(entry.getKey(), termId);
+                    building.add(new ArrayList<>());
+                }
+                // Ordinal and frequency pairs
+                List<Integer> list = building.get(termId);
+                list.add(ordinal);
+                list.add(entry.getValue());
+                totalPostings++;
+            }
+        }
+
+        long[] references = new long[termIds.size()];
+        int[] postings = new int[totalPostings];
+        int[] frequencies = new int[totalPostings];
+        int offset = 0;
+        for (int termId = 0; termId < building.size(); termId++) {
+            List<Integer> list = building.get(termId);
+            references[termId] = reference(offset, list.size() / 2);
+            for (int i = 0; i < list.size(); i += 2) {
+                postings[offset] = list.get(i);
+                frequencies[offset++] = list.get(i + 1);
+            }
+        }
+
+        return new InvertedIndex(analyzer, termIds, references, IntBuffer.wrap(postings),
+                                 IntBuffer.wrap(frequencies), IntBuffer.wrap(documentLengths));
+    }
+
+    /**
+     * Split text into lowercase terms on anything that is not a letter or digit
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Analyze a chunk's text into its terms and how often each occurs
+     */
+    public static TermCounts countTerms(Analyzer analyzer, String text) {
+        List<String> terms = analyzer.analyze(text);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return new TermCounts(terms.size(), frequencies);
+    }
+
+    /**
+     * Pack the offset and length of a posting list into one reference
+     */
+    public static long reference(int offset, int length) {
+        return ((long) offset << 32) | (length & 0xffffffffL);
+    }
+
+    public Analyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Distinct term ids of a query, in order; terms missing from the index are dropped
+     */
+    public int[] queryTermIds(String query) {
+        return analyzer.analyze(query).stream()
+                .map(termIds::get)
+                .filter(Objects::nonNull)
+                .distinct()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Id of an analyzed term, or -1 when no chunk contains it
+     */
+    public int getTermId(String term) {
+        return termIds.getOrDefault(term, -1);
+    }
+
+    public int[] getPostings(String term) {
+        int termId = getTermId(term);
+        return termId < 0 ? NO_POSTINGS : getPostings(termId);
+    }
+
+    public int[] getPostings(int termId) {
+        long reference = references[termId];
+        int[] list = new int[(int) reference];
+        postings.get((int) (reference >>> 32), list);
+        return list;
+    }
+
+    /**
+     * Number of chunks containing the term
+     */
+    public int getDocumentFrequency(int termId) {
+        return (int) references[termId];
+    }
+
+    /**
+     * Add the BM25 contribution of one query term to every chunk containing it
+     */
+    public void scoreBm25(int termId, ScoreAccumulator scores) {
+        scoreBm25(termId, scores, null);
+    }
+
+    /**
+     * Add the BM25 contribution of one query term to the chunks containing it that are
+     * also in {@code filter} (all of them when null)
+     */
+    public void scoreBm25(int termId, ScoreAccumulator scores, ImmutableRoaringBitmap filter) {
+        scoreBm25(termId, scores, filter, 0, documentCount);
+    }
+
+    /**
+     * As {@link #scoreBm25(int, ScoreAccumulator, ImmutableRoaringBitmap)} for the ordinals in
+     * {@code [start, end)} only, e.g. one shard; idf stays that of the whole index
+     */
+    public void scoreBm25(int termId, ScoreAccumulator scores, ImmutableRoaringBitmap filter, int start, int end) {
+        float idf = idf(termId);
+        forEachPosting(termId, filter, start, end,
+                (ordinal, frequency) -> scores.add(ordinal, bm25(idf, ordinal, frequency)));
+    }
+
+    /**
+     * BM25 contribution of one term to each chunk of its posting list, aligned with
+     * {@link #getPostings(int)}; computed once and shared by a batch of queries
+     */
+    public float[] getBm25Weights(int termId) {
+        long reference = references[termId];
+        int offset = (int) (reference >>> 32);
+        float idf = idf(termId);
+        float[] weights = new float[(int) reference];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = bm25(idf, postings.get(offset + i), frequencies.get(offset + i));
+        }
+        return weights;
+    }
+
+    private float idf(int termId) {
+        int documentFrequency = getDocumentFrequency(termId);
+        return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private float bm25(float idf, int ordinal, int frequency) {
+        float norm = BM25_K1 * (1 - BM25_B + BM25_B * getDocumentLength(ordinal) / averageDocumentLength);
+        return idf * frequency * (BM25_K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * Add a fixed weight for one query term to the chunks containing it that are also in
+     * {@code filter} (all of them when null)
+     */
+    public void addPostings(int termId, float weight, ScoreAccumulator scores, ImmutableRoaringBitmap filter) {
+        addPostings(termId, weight, scores, filter, 0, documentCount);
+    }
+
+    public void addPostings(int termId, float weight, ScoreAccumulator scores, ImmutableRoaringBitmap filter,
+                            int start, int end) {
+        forEachPosting(termId, filter, start, end, (ordinal, frequency) -> scores.add(ordinal, weight));
+    }
+
+    private interface PostingVisitor {
+        void visit(int ordinal, int frequency);
+    }
+
+    /**
+     * Visit the postings of a term within the ordinal range {@code [start, end)} restricted
+     * to a filter. A filter much smaller than the posting list is walked instead, with a
+     * binary search of the sorted list per ordinal.
+     */
+    private void forEachPosting(int termId, ImmutableRoaringBitmap filter, int start, int end,
+                                PostingVisitor visitor) {
+        long reference = references[termId];
+        int listStart = (int) (reference >>> 32);
+        int listEnd = listStart + (int) reference;
+        int offset = start == 0 ? listStart : lowerBound(listStart, listEnd, start);
+
+        if (filter != null && (long) filter.getCardinality() * FILTER_WALK_RATIO < listEnd - offset) {
+            PeekableIntIterator ordinals = filter.getIntIterator();
+            ordinals.advanceIfNeeded(start);
+            int low = offset;
+            while (ordinals.hasNext() && low < listEnd) {
+                int ordinal = ordinals.next();
+                if (ordinal >= end) {
+                    break;
+                }
+                int high = listEnd - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int value = postings.get(mid);
+                    if (value < ordinal) {
+                        low = mid + 1;
+                    } else if (value > ordinal) {
+                        high = mid - 1;
+                    } else {
+                        visitor.visit(ordinal, frequencies.get(mid));
+                        low = mid + 1;
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+
+        for (int i = offset; i < listEnd; i++) {
+            int ordinal = postings.get(i);
+            if (ordinal >= end) {
+                break;
+            }
+            if (filter == null || filter.contains(ordinal)) {
+                visitor.visit(ordinal, frequencies.get(i));
+            }
+        }
+    }
+
+    /**
+     * First position in the sorted postings {@code [from, to)} holding an ordinal of at least {@code ordinal}
+     */
+    private int lowerBound(int from, int to, int ordinal) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (postings.get(mid) < ordinal) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Number of analyzed tokens in a chunk
+     */
+    public int getDocumentLength(int ordinal) {
+        return documentLengths.get(ordinal);
+    }
+
+    public int getTermCount() {
+        return termIds.size();
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public float getAverageDocumentLength() {
+        return averageDocumentLength;
+    }
+
+    public long getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Write the dictionary (terms in id order with their posting references), then the
+     * postings, frequencies and chunk lengths; read back by {@link SegmentReader}
+     */
+    public void writeDictionary(SegmentWriter writer) throws IOException {
+        String[] terms = new String[termIds.size()];
+        for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+            terms[entry.getValue()] = entry.getKey();
+        }
+        writer.writeInt(terms.length);
+        for (int termId = 0; termId < terms.length; termId++) {
+            writer.writeString(terms[termId]);
+            writer.writeLong(references[termId]);
+        }
+    }
+
+    public void writePostings(SegmentWriter writer) throws IOException {
+        writeInts(writer, postings);
+    }
+
+    public void writeFrequencies(SegmentWriter writer) throws IOException {
+        writeInts(writer, frequencies);
+    }
+
+    public void writeDocumentLengths(SegmentWriter writer) throws IOException {
+        writeInts(writer, documentLengths);
+    }
+
+    private static void writeInts(SegmentWriter writer, IntBuffer values) throws IOException {
+        for (int i = 0; i < values.limit(); i++) {
+            writer.writeInt(values.get(i));
+        }
+    }
+}
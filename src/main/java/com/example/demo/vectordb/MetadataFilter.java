@@ -0,0 +1,196 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed filter expression over chunk fields, evaluated against a
+ * {@link MetadataIndex} into the bitmap of matching ordinals.
+ *
+ * <pre>
+ * filter     := or
+ * or         := and ("OR" and)*
+ * and        := unary ("AND" unary)*
+ * unary      := "NOT" unary | "(" or ")" | comparison
+ * comparison := field ("=" | "!=") value
+ * </pre>
+ *
+ * Field names and values may be quoted with single or double quotes; AND,
+ * OR and NOT are case-insensitive. Example: {@code documentType=json AND category=flights}.
+ */
+public class MetadataFilter {
+
+    private final String expression;
+    private final Node root;
+
+    private interface Node {
+        ImmutableRoaringBitmap evaluate(MetadataIndex index);
+    }
+
+    private MetadataFilter(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Parse a filter expression; throws IllegalArgumentException on a syntax error
+     */
+    public static MetadataFilter parse(String expression) {
+        Parser parser = new Parser(tokenize(expression));
+        Node root = parser.or();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) +
+                                               "' in filter: " + expression);
+        }
+        return new MetadataFilter(expression, root);
+    }
+
+    /**
+     * Ordinals of the chunks matching the filter
+     */
+    public ImmutableRoaringBitmap evaluate(MetadataIndex index) {
+        return root.evaluate(index);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')' || c == '=') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '!' && i + 1 < expression.length() && expression.charAt(i + 1) == '=') {
+                tokens.add("!=");
+                i += 2;
+            } else if (c == '\'' || c == '"') {
+                int end = expression.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in filter: " + expression);
+                }
+                // Keep the opening quote so a quoted "and" is a value, not an operator
+                tokens.add(c + expression.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < expression.length() && !Character.isWhitespace(expression.charAt(i))
+                        && "()=!'\"".indexOf(expression.charAt(i)) < 0) {
+                    i++;
+                }
+                if (start == i) {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in filter: " + expression);
+                }
+                tokens.add(expression.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Node or() {
+            Node left = and();
+            while (keyword("OR")) {
+                Node l = left;
+                Node r = and();
+                left = index -> ImmutableRoaringBitmap.or(l.evaluate(index), r.evaluate(index));
+            }
+            return left;
+        }
+
+        Node and() {
+            Node left = unary();
+            while (keyword("AND")) {
+                Node l = left;
+                Node r = unary();
+                left = index -> ImmutableRoaringBitmap.and(l.evaluate(index), r.evaluate(index));
+            }
+            return left;
+        }
+
+        Node unary() {
+            if (keyword("NOT")) {
+                Node operand = unary();
+                return index -> ImmutableRoaringBitmap.andNot(index.all(), operand.evaluate(index));
+            }
+            if (symbol("(")) {
+                Node inner = or();
+                if (!symbol(")")) {
+                    throw error("Expected ')'");
+                }
+                return inner;
+            }
+            return comparison();
+        }
+
+        Node comparison() {
+            String field = word("field name");
+            boolean negated;
+            if (symbol("=")) {
+                negated = false;
+            } else if (symbol("!=")) {
+                negated = true;
+            } else {
+                throw error("Expected '=' or '!=' after " + field);
+            }
+            String value = word("value");
+
+            if (negated) {
+                return index -> ImmutableRoaringBitmap.andNot(index.all(), index.get(field, value));
+            }
+            return index -> index.get(field, value);
+        }
+
+        private String word(String what) {
+            if (position >= tokens.size()) {
+                throw error("Expected " + what);
+            }
+            String token = tokens.get(position);
+            if (token.equals("(") || token.equals(")") || token.equals("=") || token.equals("!=")) {
+                throw error("Expected " + what);
+            }
+            position++;
+            return token.startsWith("'") || token.startsWith("\"") ? token.substring(1) : token;
+        }
+
+        private boolean keyword(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean symbol(String symbol) {
+            if (position < tokens.size() && tokens.get(position).equals(symbol)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private IllegalArgumentException error(String message) {
+            String near = position < tokens.size() ? " near '" + tokens.get(position) + "'" : " at end";
+            return new IllegalArgumentException(message + near + " in filter: " + String.join(" ", tokens));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Compressed bitmap of chunk ordinals for every (field, value) pair of an
+ * index: documentType, sourceFile and each scalar metadata entry. Filters are
+ * answered by bitmap intersections before any chunk is scored.
+ *
+ * Bitmaps built at index time are mutable heap bitmaps; bitmaps read from a
+ * segment are immutable views over the mapped bytes and are never copied.
+ */
+public class MetadataIndex {
+
+    public static final String DOCUMENT_TYPE = "documentType";
+    public static final String SOURCE_FILE = "sourceFile";
+
+    private static final ImmutableRoaringBitmap EMPTY = new MutableRoaringBitmap();
+
+    private final Map<String, Map<String, ImmutableRoaringBitmap>> fields;
+    private final int documentCount;
+
+    public MetadataIndex(Map<String, Map<String, ImmutableRoaringBitmap>> fields, int documentCount) {
+        this.fields = fields;
+        this.documentCount = documentCount;
+    }
+
+    /**
+     * Index the filterable fields of the given chunks; ordinals are list positions
+     */
+    public static MetadataIndex build(List<DocumentChunk> chunks) {
+        Map<String, Map<String, MutableRoaringBitmap>> building = new TreeMap<>();
+
+        for (int ordinal = 0; ordinal < chunks.size(); ordinal++) {
+            DocumentChunk chunk = chunks.get(ordinal);
+            add(building, DOCUMENT_TYPE, chunk.getDocumentType(), ordinal);
+            add(building, SOURCE_FILE, chunk.getSourceFile(), ordinal);
+            for (Map.Entry<String, Object> entry : chunk.getMetadata().entrySet()) {
+                Object value = entry.getValue();
+                // Only scalar values can be compared in a filter
+                if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                    add(building, entry.getKey(), value.toString(), ordinal);
+                }
+            }
+        }
+
+        Map<String, Map<String, ImmutableRoaringBitmap>> fields = new TreeMap<>();
+        for (Map.Entry<String, Map<String, MutableRoaringBitmap>> field : building.entrySet()) {
+            Map<String, ImmutableRoaringBitmap> values = new HashMap<>();
+            for (Map.Entry<String, MutableRoaringBitmap> value : field.getValue().entrySet()) {
+                value.getValue().runOptimize();
+                values.put(value.getKey(), value.getValue());
+            }
+            fields.put(field.getKey(), values);
+        }
+        return new MetadataIndex(fields, chunks.size());
+    }
+
+    private static void add(Map<String, Map<String, MutableRoaringBitmap>> building, String field, String value,
+                            int ordinal) {
+        if (value != null) {
+            building.computeIfAbsent(field, f -> new HashMap<>())
+                    .computeIfAbsent(value, v -> new MutableRoaringBitmap())
+                    .add(ordinal);
+        }
+    }
+
+    /**
+     * Chunks whose field has the given value; empty for unknown fields or values
+     */
+    public ImmutableRoaringBitmap get(String field, String value) {
+        Map<String, ImmutableRoaringBitmap> values = fields.get(field);
+        if (values == null) {
+            return EMPTY;
+        }
+        return values.getOrDefault(value, EMPTY);
+    }
+
+    /**
+     * Every chunk of the index, used to complement a bitmap for NOT and !=
+     */
+    public ImmutableRoaringBitmap all() {
+        MutableRoaringBitmap all = new MutableRoaringBitmap();
+        all.add(0L, documentCount);
+        return all;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Number of distinct values per field
+     */
+    public Map<String, Integer> getValueCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        fields.forEach((field, values) -> counts.put(field, values.size()));
+        return counts;
+    }
+
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (Map<String, ImmutableRoaringBitmap> values : fields.values()) {
+            for (ImmutableRoaringBitmap bitmap : values.values()) {
+                bytes += bitmap.serializedSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Write each field with its values and serialized bitmaps; read back by {@link #read}
+     */
+    public void writeTo(SegmentWriter writer) throws IOException {
+        writer.writeInt(fields.size());
+        for (Map.Entry<String, Map<String, ImmutableRoaringBitmap>> field : fields.entrySet()) {
+            writer.writeString(field.getKey());
+            writer.writeInt(field.getValue().size());
+            for (Map.Entry<String, ImmutableRoaringBitmap> value : field.getValue().entrySet()) {
+                ByteBuffer serialized = ByteBuffer.allocate(value.getValue().serializedSizeInBytes());
+                value.getValue().serialize(serialized);
+                writer.writeString(value.getKey());
+                writer.writeInt(serialized.capacity());
+                writer.writeBytes(serialized.array());
+            }
+        }
+    }
+
+    /**
+     * Map the bitmaps of a segment section in place
+     */
+    public static MetadataIndex read(ByteBuffer section, int documentCount) {
+        Map<String, Map<String, ImmutableRoaringBitmap>> fields = new TreeMap<>();
+        int fieldCount = section.getInt(0);
+        int position = Integer.BYTES;
+
+        for (int f = 0; f < fieldCount; f++) {
+            String field = SegmentReader.readString(section, position);
+            position += SegmentReader.stringBytes(section, position);
+            int valueCount = section.getInt(position);
+            position += Integer.BYTES;
+
+            Map<String, ImmutableRoaringBitmap> values = new HashMap<>(valueCount * 2);
+            for (int v = 0; v < valueCount; v++) {
+                String value = SegmentReader.readString(section, position);
+                position += SegmentReader.stringBytes(section, position);
+                int length = section.getInt(position);
+                position += Integer.BYTES;
+                ByteBuffer serialized = section.slice(position, length).order(ByteOrder.LITTLE_ENDIAN);
+                values.put(value, new ImmutableRoaringBitmap(serialized));
+                position += length;
+            }
+            fields.put(field, values);
+        }
+        return new MetadataIndex(fields, documentCount);
+    }
+}
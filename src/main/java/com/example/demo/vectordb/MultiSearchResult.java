@@ -0,0 +1,83 @@
+package com.example.demo.vectordb;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Merged ranking of a search over several indexes. Scores are normalized per
+ * index (its best hit scores 1) and each hit names the index it came from.
+ */
+public class MultiSearchResult {
+    private final String query;
+    private final List<String> indexNames;
+    private final List<ScoredHit> hits;
+    private final Map<String, Long> indexTimesMs;
+    private final long searchTimeMs;
+
+    public MultiSearchResult(String query, List<String> indexNames, List<ScoredHit> hits,
+                             Map<String, Long> indexTimesMs, long searchTimeMs) {
+        this.query = query;
+        this.indexNames = List.copyOf(indexNames);
+        this.hits = List.copyOf(hits);
+        this.indexTimesMs = indexTimesMs;
+        this.searchTimeMs = searchTimeMs;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<String> getIndexNames() {
+        return indexNames;
+    }
+
+    /**
+     * Scored hits of all indexes, best first
+     */
+    public List<ScoredHit> getHits() {
+        return hits;
+    }
+
+    /**
+     * Chunks of the hits, best first
+     */
+    public List<DocumentChunk> getResults() {
+        return hits.stream().map(ScoredHit::getChunk).collect(Collectors.toList());
+    }
+
+    /**
+     * Time spent searching each index, in milliseconds
+     */
+    public Map<String, Long> getIndexTimesMs() {
+        return indexTimesMs;
+    }
+
+    public long getSearchTimeMs() {
+        return searchTimeMs;
+    }
+
+    public int getTotalResults() {
+        return hits.size();
+    }
+
+    public List<String> getContentSummary() {
+        return hits.stream()
+                .map(hit -> hit.getIndexName() + "/" + hit.getChunk().getSourceFile() +
+                             " (chunk " + hit.getChunk().getChunkIndex() + "): " +
+                             (hit.getChunk().getContent().length() > 150 ?
+                              hit.getChunk().getContent().substring(0, 150) + "..." :
+                              hit.getChunk().getContent()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return "MultiSearchResult{" +
+                "query='" + query + '\'' +
+                ", indexNames=" + indexNames +
+                ", totalResults=" + hits.size() +
+                ", searchTimeMs=" + searchTimeMs +
+                '}';
+    }
+}
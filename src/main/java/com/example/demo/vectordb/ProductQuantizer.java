@@ -0,0 +1,209 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Product quantization. Vectors are split into {@code subspaces} equal
+ * slices; each slice is replaced by the index of its nearest centroid in a
+ * codebook of up to 256 entries trained with k-means. A row takes one byte
+ * per subspace, and queries are scored through per-query lookup tables.
+ */
+public class ProductQuantizer implements QuantizedVectors {
+
+    private static final int MAX_CENTROIDS = 256;
+    private static final int TRAINING_ITERATIONS = 15;
+    private static final int MAX_TRAINING_VECTORS = 20_000;
+
+    private final int dimension;
+    private final int subspaces;
+    private final int subDimension;
+    private final int centroids;
+    private final float[][] codebooks; // [subspace][centroid * subDimension + i]
+    private byte[] codes;
+    private int size;
+
+    private ProductQuantizer(int dimension, int subspaces, int centroids, float[][] codebooks, int expectedSize) {
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.subDimension = dimension / subspaces;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+        this.codes = new byte[Math.max(1, expectedSize) * subspaces];
+    }
+
+    /**
+     * Train one codebook per subspace on (a sample of) the stored vectors and encode all of them
+     */
+    public static ProductQuantizer train(VectorStore vectors, int subspaces) {
+        int dimension = vectors.getDimension();
+        if (subspaces <= 0 || dimension % subspaces != 0) {
+            throw new IllegalArgumentException("PQ subspaces (" + subspaces + ") must divide the dimension " + dimension);
+        }
+        int subDimension = dimension / subspaces;
+        int rows = vectors.size();
+        int trainingRows = Math.min(rows, MAX_TRAINING_VECTORS);
+        int centroids = Math.max(1, Math.min(MAX_CENTROIDS, trainingRows));
+
+        float[][] training = new float[trainingRows][];
+        for (int i = 0; i < trainingRows; i++) {
+            training[i] = vectors.get((int) ((long) i * rows / trainingRows));
+        }
+
+        float[][] codebooks = new float[subspaces][];
+        Random random = new Random(42);
+        for (int s = 0; s < subspaces; s++) {
+            codebooks[s] = trainingRows == 0
+                    ? new float[centroids * subDimension]
+                    : kMeans(training, s * subDimension, subDimension, centroids, random);
+        }
+
+        ProductQuantizer quantizer = new ProductQuantizer(dimension, subspaces, centroids, codebooks, rows);
+        for (int ordinal = 0; ordinal < rows; ordinal++) {
+            quantizer.add(vectors.get(ordinal));
+        }
+        return quantizer;
+    }
+
+    private static float[] kMeans(float[][] training, int offset, int subDimension, int centroids, Random random) {
+        // Seed the centroids with distinct training vectors picked by a partial shuffle
+        float[] codebook = new float[centroids * subDimension];
+        int[] order = new int[training.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int c = 0; c < centroids; c++) {
+            int pick = c + random.nextInt(order.length - c);
+            int swap = order[c];
+            order[c] = order[pick];
+            order[pick] = swap;
+            System.arraycopy(training[order[c]], offset, codebook, c * subDimension, subDimension);
+        }
+
+        int[] assignment = new int[training.length];
+        for (int iteration = 0; iteration < TRAINING_ITERATIONS; iteration++) {
+            for (int i = 0; i < training.length; i++) {
+                assignment[i] = nearest(codebook, centroids, subDimension, training[i], offset);
+            }
+
+            float[] sums = new float[codebook.length];
+            int[] counts = new int[centroids];
+            for (int i = 0; i < training.length; i++) {
+                int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < subDimension; d++) {
+                    sums[c * subDimension + d] += training[i][offset + d];
+                }
+            }
+            for (int c = 0; c < centroids; c++) {
+                // Empty clusters keep their previous centroid
+                if (counts[c] > 0) {
+                    for (int d = 0; d < subDimension; d++) {
+                        codebook[c * subDimension + d] = sums[c * subDimension + d] / counts[c];
+                    }
+                }
+            }
+        }
+        return codebook;
+    }
+
+    private static int nearest(float[] codebook, int centroids, int subDimension, float[] vector, int offset) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < centroids; c++) {
+            float distance = 0;
+            for (int d = 0; d < subDimension; d++) {
+                float diff = codebook[c * subDimension + d] - vector[offset + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void add(float[] vector) {
+        if ((size + 1) * subspaces > codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(codes.length * 2, (size + 1) * subspaces));
+        }
+        int offset = size * subspaces;
+        for (int s = 0; s < subspaces; s++) {
+            codes[offset + s] = (byte) nearest(codebooks[s], centroids, subDimension, vector, s * subDimension);
+        }
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TopK topK(float[] query, int k, ImmutableRoaringBitmap filter) {
+        // Asymmetric distance: dot products of each query slice with every centroid, looked up per code
+        float[] table = new float[subspaces * centroids];
+        for (int s = 0; s < subspaces; s++) {
+            float[] slice = Arrays.copyOfRange(query, s * subDimension, (s + 1) * subDimension);
+            for (int c = 0; c < centroids; c++) {
+                table[s * centroids + c] = VectorKernels.dot(codebooks[s], c * subDimension, slice, subDimension);
+            }
+        }
+
+        if (filter == null) {
+            TopK topK = new TopK(Math.min(k, size));
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                topK.offer(ordinal, score(ordinal, table));
+            }
+            return topK;
+        }
+
+        TopK topK = new TopK(Math.min(k, filter.getCardinality()));
+        IntIterator ordinals = filter.getIntIterator();
+        while (ordinals.hasNext()) {
+            int ordinal = ordinals.next();
+            if (ordinal >= size) {
+                break;
+            }
+            topK.offer(ordinal, score(ordinal, table));
+        }
+        return topK;
+    }
+
+    private float score(int ordinal, float[] table) {
+        int offset = ordinal * subspaces;
+        float score = 0;
+        for (int s = 0; s < subspaces; s++) {
+            score += table[s * centroids + (codes[offset + s] & 0xff)];
+        }
+        return score;
+    }
+
+    public int getSubspaces() {
+        return subspaces;
+    }
+
+    public int getCentroids() {
+        return centroids;
+    }
+
+    @Override
+    public long getCodeBytes() {
+        return codes.length;
+    }
+
+    @Override
+    public long getCodebookBytes() {
+        return (long) subspaces * centroids * subDimension * Float.BYTES;
+    }
+
+    @Override
+    public QuantizationType getType() {
+        return QuantizationType.PQ;
+    }
+}
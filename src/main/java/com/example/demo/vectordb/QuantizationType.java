@@ -0,0 +1,17 @@
+package com.example.demo.vectordb;
+
+/**
+ * Compressed form in which an index keeps its embeddings for the first pass
+ * of a {@link SearchMode#VECTOR} query.
+ */
+public enum QuantizationType {
+
+    /** Full float32 vectors only */
+    NONE,
+
+    /** One signed byte per component, scaled per dimension */
+    INT8,
+
+    /** Product quantization: one byte per subspace, decoded through trained codebooks */
+    PQ
+}
@@ -0,0 +1,41 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+/**
+ * Compressed copy of the rows of a {@link VectorStore}, scored without
+ * decoding back to floats. Ordinals match the vector store.
+ */
+public interface QuantizedVectors {
+
+    /**
+     * Encode a normalized vector and append it as the next ordinal
+     */
+    void add(float[] vector);
+
+    int size();
+
+    /**
+     * Top candidates by approximate cosine similarity computed on the codes
+     */
+    default TopK topK(float[] query, int k) {
+        return topK(query, k, null);
+    }
+
+    /**
+     * Top candidates among the ordinals in {@code filter}; all ordinals when null
+     */
+    TopK topK(float[] query, int k, ImmutableRoaringBitmap filter);
+
+    /**
+     * Bytes used by the codes
+     */
+    long getCodeBytes();
+
+    /**
+     * Bytes used by trained parameters such as ranges or codebooks
+     */
+    long getCodebookBytes();
+
+    QuantizationType getType();
+}
@@ -0,0 +1,106 @@
+package com.example.demo.vectordb;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures recall and latency of an approximate vector search against the
+ * exact brute-force scan. Sample queries are the stored vectors of evenly
+ * spaced chunks with seeded Gaussian noise added, and the source chunk is
+ * dropped from both result lists, so a query never trivially finds itself
+ * and the numbers stay reproducible for a given index.
+ */
+public final class RecallEstimator {
+
+    /** Approximate search under evaluation */
+    @FunctionalInterface
+    public interface ApproximateSearch {
+        TopK search(float[] query, int k);
+    }
+
+    /** Noise norm relative to the unit-length sample vector */
+    private static final double NOISE = 0.3;
+    private static final long SEED = 42;
+
+    private RecallEstimator() {
+    }
+
+    public static Map<String, Object> measure(VectorStore vectors, ApproximateSearch approximate, int k, int sampleSize) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        int rows = vectors.size();
+        int samples = Math.min(sampleSize, rows);
+        int topK = Math.min(k, rows);
+
+        if (samples == 0) {
+            result.put("sampleQueries", 0);
+            return result;
+        }
+
+        long exactNanos = 0;
+        long approximateNanos = 0;
+        long found = 0;
+
+        long expected = 0;
+        Random random = new Random(SEED);
+
+        for (int i = 0; i < samples; i++) {
+            int source = (int) ((long) i * rows / samples);
+            float[] query = perturb(vectors.get(source), random);
+
+            // One extra result makes up for the source chunk being dropped
+            long start = System.nanoTime();
+            int[] exact = withoutSource(vectors.topK(query, topK + 1).drain(null), source, topK);
+            exactNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int[] approximated = withoutSource(approximate.search(query, topK + 1).drain(null), source, topK);
+            approximateNanos += System.nanoTime() - start;
+
+            found += overlap(exact, approximated);
+            expected += exact.length;
+        }
+
+        result.put("sampleQueries", samples);
+        result.put("k", topK);
+        result.put("recall", expected == 0 ? 1.0 : (double) found / expected);
+        result.put("avgLatencyMicros", approximateNanos / 1000.0 / samples);
+        result.put("exactAvgLatencyMicros", exactNanos / 1000.0 / samples);
+        return result;
+    }
+
+    private static float[] perturb(float[] vector, Random random) {
+        float[] query = vector.clone();
+        double sigma = NOISE / Math.sqrt(query.length);
+        for (int d = 0; d < query.length; d++) {
+            query[d] += (float) (random.nextGaussian() * sigma);
+        }
+        VectorKernels.normalize(query);
+        return query;
+    }
+
+    private static int[] withoutSource(int[] ordinals, int source, int k) {
+        int[] kept = new int[Math.min(k, ordinals.length)];
+        int n = 0;
+        for (int ordinal : ordinals) {
+            if (ordinal != source && n < kept.length) {
+                kept[n++] = ordinal;
+            }
+        }
+        return n == kept.length ? kept : Arrays.copyOf(kept, n);
+    }
+
+    private static int overlap(int[] expected, int[] actual) {
+        int count = 0;
+        for (int e : expected) {
+            for (int a : actual) {
+                if (e == a) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * int8 scalar quantization. Each dimension is mapped linearly from its
+ * trained [min, max] range onto the 256 values of a signed byte, so a row
+ * takes a quarter of its float32 size.
+ */
+public class ScalarQuantizer implements QuantizedVectors {
+
+    private final int dimension;
+    private final float[] min;
+    private final float[] scale;
+    private byte[] codes;
+    private int size;
+
+    private ScalarQuantizer(int dimension, float[] min, float[] scale, int expectedSize) {
+        this.dimension = dimension;
+        this.min = min;
+        this.scale = scale;
+        this.codes = new byte[Math.max(1, expectedSize) * dimension];
+    }
+
+    /**
+     * Learn per-dimension ranges from the stored vectors and encode all of them
+     */
+    public static ScalarQuantizer train(VectorStore vectors) {
+        int dimension = vectors.getDimension();
+        float[] min = new float[dimension];
+        float[] max = new float[dimension];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            float[] row = vectors.get(ordinal);
+            for (int i = 0; i < dimension; i++) {
+                min[i] = Math.min(min[i], row[i]);
+                max[i] = Math.max(max[i], row[i]);
+            }
+        }
+
+        float[] scale = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            if (min[i] > max[i]) {
+                min[i] = 0;
+                max[i] = 0;
+            }
+            scale[i] = (max[i] - min[i]) / 255f;
+        }
+
+        ScalarQuantizer quantizer = new ScalarQuantizer(dimension, min, scale, vectors.size());
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            quantizer.add(vectors.get(ordinal));
+        }
+        return quantizer;
+    }
+
+    @Override
+    public void add(float[] vector) {
+        if ((size + 1) * dimension > codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(codes.length * 2, (size + 1) * dimension));
+        }
+        int offset = size * dimension;
+        for (int i = 0; i < dimension; i++) {
+            int level = scale[i] == 0 ? 0 : Math.round((vector[i] - min[i]) / scale[i]);
+            codes[offset + i] = (byte) (Math.max(0, Math.min(255, level)) - 128);
+        }
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TopK topK(float[] query, int k, ImmutableRoaringBitmap filter) {
+        // x_i ~ min_i + scale_i * (code_i + 128), so q.x ~ constant + sum(q_i * scale_i * code_i)
+        float[] scaledQuery = new float[dimension];
+        float constant = 0;
+        for (int i = 0; i < dimension; i++) {
+            scaledQuery[i] = query[i] * scale[i];
+            constant += query[i] * min[i] + 128 * scaledQuery[i];
+        }
+
+        if (filter == null) {
+            TopK topK = new TopK(Math.min(k, size));
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                topK.offer(ordinal, score(ordinal, scaledQuery, constant));
+            }
+            return topK;
+        }
+
+        TopK topK = new TopK(Math.min(k, filter.getCardinality()));
+        IntIterator ordinals = filter.getIntIterator();
+        while (ordinals.hasNext()) {
+            int ordinal = ordinals.next();
+            if (ordinal >= size) {
+                break;
+            }
+            topK.offer(ordinal, score(ordinal, scaledQuery, constant));
+        }
+        return topK;
+    }
+
+    private float score(int ordinal, float[] scaledQuery, float constant) {
+        int offset = ordinal * dimension;
+        float score = constant;
+        for (int i = 0; i < dimension; i++) {
+            score += scaledQuery[i] * codes[offset + i];
+        }
+        return score;
+    }
+
+    @Override
+    public long getCodeBytes() {
+        return codes.length;
+    }
+
+    @Override
+    public long getCodebookBytes() {
+        return 2L * dimension * Float.BYTES;
+    }
+
+    @Override
+    public QuantizationType getType() {
+        return QuantizationType.INT8;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.vectordb;
+
+import java.util.Arrays;
+
+/**
+ * Per-query score sums indexed by chunk ordinal, in primitive arrays that are
+ * reused across queries. Only the touched slots are cleared on reset, so a
+ * query costs in proportion to its postings rather than to the index size.
+ * Not thread-safe: keep one per thread.
+ */
+public final class ScoreAccumulator {
+
+    private float[] scores = new float[0];
+    private int[] touched = new int[16];
+    private int touchedCount;
+
+    /**
+     * Clear the previous query and make room for {@code documentCount} ordinals
+     */
+    public void reset(int documentCount) {
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0;
+        }
+        touchedCount = 0;
+        if (scores.length < documentCount) {
+            scores = new float[documentCount];
+        }
+    }
+
+    /**
+     * Add a positive weight to the score of an ordinal
+     */
+    public void add(int ordinal, float weight) {
+        if (scores[ordinal] == 0) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = ordinal;
+        }
+        scores[ordinal] += weight;
+    }
+
+    public int touchedCount() {
+        return touchedCount;
+    }
+
+    /**
+     * Best {@code k} scored ordinals; ties keep the lower ordinal
+     */
+    public TopK topK(int k) {
+        TopK topK = new TopK(Math.min(k, touchedCount));
+        for (int i = 0; i < touchedCount; i++) {
+            topK.offer(touched[i], scores[touched[i]]);
+        }
+        return topK;
+    }
+}
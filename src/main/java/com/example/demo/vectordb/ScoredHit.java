@@ -0,0 +1,56 @@
+package com.example.demo.vectordb;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One search hit: a chunk, the index it came from, its position in that index
+ * and the score it got for a single query. Immutable, so the score never leaks into the shared chunk.
+ */
+public final class ScoredHit {
+
+    private final String indexName;
+    private final int ordinal;
+    private final float score;
+    private final DocumentChunk chunk;
+
+    public ScoredHit(String indexName, int ordinal, float score, DocumentChunk chunk) {
+        this.indexName = indexName;
+        this.ordinal = ordinal;
+        this.score = score;
+        this.chunk = chunk;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public String getChunkId() {
+        return chunk.getId();
+    }
+
+    /**
+     * The chunk itself; serialized once in {@link SearchResult#getResults()} rather than per hit
+     */
+    @JsonIgnore
+    public DocumentChunk getChunk() {
+        return chunk;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoredHit{" +
+                "indexName='" + indexName + '\'' +
+                ", ordinal=" + ordinal +
+                ", score=" + score +
+                ", chunkId='" + chunk.getId() + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.vectordb;
+
+/**
+ * How {@link DemoVectorDB#search} finds and scores chunks for a query.
+ */
+public enum SearchMode {
+
+    /** Full scan with the original rule: every query word is looked for as a substring of every chunk */
+    LINEAR_SCAN,
+
+    /** Inverted index lookup: only chunks containing a query term are scored */
+    KEYWORD,
+
+    /** Inverted index lookup ranked by Okapi BM25: term frequency, term rarity and chunk length */
+    BM25,
+
+    /** Dense retrieval: cosine similarity between query and chunk embeddings */
+    VECTOR,
+
+    /** BM25 and dense retrieval run concurrently, merged by weighted reciprocal rank fusion */
+    HYBRID
+}
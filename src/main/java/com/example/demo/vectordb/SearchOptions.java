@@ -0,0 +1,75 @@
+package com.example.demo.vectordb;
+
+/**
+ * Per-query settings for {@link DemoVectorDB#search(String, String, SearchMode, SearchOptions)}.
+ */
+public class SearchOptions {
+
+    private int k = 10;
+    private String cursor;
+    private String filter;
+    private boolean paged;
+
+    public SearchOptions() {
+    }
+
+    public SearchOptions(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Number of hits per page
+     */
+    public int getK() {
+        return k;
+    }
+
+    public void setK(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Opaque cursor from {@link SearchResult#getNextCursor()} to fetch the following page;
+     * null for the first page
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Metadata filter expression, see {@link MetadataFilter}; null for none
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Whether the caller pages through the hits; only then is the ranking kept past the
+     * first page and a next cursor returned
+     */
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public void setPaged(boolean paged) {
+        this.paged = paged;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchOptions{" +
+                "k=" + k +
+                ", cursor='" + cursor + '\'' +
+                ", filter='" + filter + '\'' +
+                ", paged=" + paged +
+                '}';
+    }
+}
@@ -4,28 +4,43 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class SearchResult {
-    private List<DocumentChunk> results;
+    private List<ScoredHit> hits;
     private String query;
     private String indexName;
     private long searchTimeMs;
     private int totalResults;
+    private Map<String, Double> retrieverTimesMs = Map.of();
+    private int offset;
+    private String nextCursor;
+    private boolean cached;
 
-    public SearchResult(String query, String indexName, List<DocumentChunk> results, long searchTimeMs) {
+    public SearchResult(String query, String indexName, List<ScoredHit> hits, long searchTimeMs) {
         this.query = query;
         this.indexName = indexName;
-        this.results = results != null ? results : new ArrayList<>();
-        this.totalResults = this.results.size();
+        this.hits = hits != null ? List.copyOf(hits) : List.of();
+        this.totalResults = this.hits.size();
         this.searchTimeMs = searchTimeMs;
     }
 
     // Getters and Setters
-    public List<DocumentChunk> getResults() {
-        return results;
+
+    /**
+     * Scored hits, best first
+     */
+    public List<ScoredHit> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<ScoredHit> hits) {
+        this.hits = hits != null ? List.copyOf(hits) : List.of();
+        this.totalResults = this.hits.size();
     }
 
-    public void setResults(List<DocumentChunk> results) {
-        this.results = results;
-        this.totalResults = results != null ? results.size() : 0;
+    /**
+     * Chunks of the hits, best first
+     */
+    public List<DocumentChunk> getResults() {
+        return hits.stream().map(ScoredHit::getChunk).collect(Collectors.toList());
     }
 
     public String getQuery() {
@@ -52,6 +67,50 @@ public class SearchResult {
         this.searchTimeMs = searchTimeMs;
     }
 
+    /**
+     * Time spent in each retriever (and in fusion, for hybrid search), in milliseconds
+     */
+    public Map<String, Double> getRetrieverTimesMs() {
+        return retrieverTimesMs;
+    }
+
+    public void setRetrieverTimesMs(Map<String, Double> retrieverTimesMs) {
+        this.retrieverTimesMs = retrieverTimesMs != null ? retrieverTimesMs : Map.of();
+    }
+
+    /**
+     * Rank of the first hit of this page within the whole result, 0 for the first page
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Cursor of the following page, or null when this is the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Whether the ranking came from the query cache instead of scoring the index
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
     public int getTotalResults() {
         return totalResults;
     }
@@ -61,7 +120,7 @@ public class SearchResult {
     }
 
     public List<String> getContentSummary() {
-        return results.stream()
+        return getResults().stream()
                 .map(chunk -> chunk.getSourceFile() + " (chunk " + chunk.getChunkIndex() + "): " + 
                              (chunk.getContent().length() > 150 ? 
                               chunk.getContent().substring(0, 150) + "..." : 
@@ -76,6 +135,8 @@ public class SearchResult {
                 ", indexName='" + indexName + '\'' +
                 ", totalResults=" + totalResults +
                 ", searchTimeMs=" + searchTimeMs +
+                ", retrieverTimesMs=" + retrieverTimesMs +
+                ", offset=" + offset +
                 '}';
     }
 }
\ No newline at end of file
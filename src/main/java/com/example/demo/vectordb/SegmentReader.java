@@ -0,0 +1,198 @@
+package com.example.demo.vectordb;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Opens a segment written by {@link SegmentWriter} through {@link FileChannel#map}.
+ * Only the header and the term dictionary are decoded onto the heap; chunk
+ * records, postings and vectors are read from the mapped sections on demand,
+ * so their pages live in the OS page cache. Each section must be under 2 GB.
+ */
+public class SegmentReader {
+
+    private final Path path;
+    private final Map<String, Object> header;
+    private final Map<String, ByteBuffer> sections = new HashMap<>();
+
+    private SegmentReader(Path path, Map<String, Object> header) {
+        this.path = path;
+        this.header = header;
+    }
+
+    public static SegmentReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SegmentWriter.FOOTER_BYTES) {
+                throw new IOException("Segment too small: " + path);
+            }
+
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, size - SegmentWriter.FOOTER_BYTES,
+                    SegmentWriter.FOOTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long headerOffset = footer.getLong();
+            int headerLength = footer.getInt();
+            int formatVersion = footer.getInt();
+            int magic = footer.getInt();
+            if (magic != SegmentWriter.MAGIC) {
+                throw new IOException("Not a segment file: " + path);
+            }
+            if (formatVersion != SegmentWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported segment format " + formatVersion + ": " + path);
+            }
+
+            byte[] headerBytes = new byte[headerLength];
+            channel.map(FileChannel.MapMode.READ_ONLY, headerOffset, headerLength).get(headerBytes);
+            Map<String, Object> header = SegmentWriter.JSON.readValue(headerBytes, new TypeReference<>() {
+            });
+
+            SegmentReader reader = new SegmentReader(path, header);
+
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Number>> sectionTable = (Map<String, Map<String, Number>>) header.get("sections");
+            for (Map.Entry<String, Map<String, Number>> entry : sectionTable.entrySet()) {
+                long offset = entry.getValue().get("offset").longValue();
+                long length = entry.getValue().get("length").longValue();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Section '" + entry.getKey() + "' exceeds 2 GB: " + path);
+                }
+                MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                section.order(ByteOrder.LITTLE_ENDIAN);
+                reader.sections.put(entry.getKey(), section);
+            }
+            return reader;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Map<String, Object> getHeader() {
+        return header;
+    }
+
+    /**
+     * Chunks as a list view that decodes a record only when it is accessed
+     */
+    public List<DocumentChunk> readChunks() {
+        int count = ((Number) header.get("chunkCount")).intValue();
+        return new MappedChunkList(sections.get("chunks"), sections.get("chunkOffsets"), sections.get("contents"), count);
+    }
+
+    /**
+     * Term dictionary decoded onto the heap; postings, frequencies and chunk lengths stay mapped
+     */
+    public InvertedIndex readInvertedIndex(Analyzer analyzer) {
+        ByteBuffer dictionarySection = sections.get("dictionary");
+        int termCount = dictionarySection.getInt(0);
+        Map<String, Integer> termIds = new HashMap<>(termCount * 2);
+        long[] references = new long[termCount];
+        int position = Integer.BYTES;
+        for (int termId = 0; termId < termCount; termId++) {
+            String term = readString(dictionarySection, position);
+            position += stringBytes(dictionarySection, position);
+            termIds.put(term, termId);
+            references[termId] = dictionarySection.getLong(position);
+            position += Long.BYTES;
+        }
+
+        return new InvertedIndex(analyzer, termIds, references, sections.get("postings").asIntBuffer(),
+                sections.get("frequencies").asIntBuffer(), sections.get("documentLengths").asIntBuffer());
+    }
+
+    /**
+     * Metadata bitmaps as immutable views over the mapped section
+     */
+    public MetadataIndex readMetadataIndex() {
+        int count = ((Number) header.get("chunkCount")).intValue();
+        return MetadataIndex.read(sections.get("metadata"), count);
+    }
+
+    public VectorStore readVectors() {
+        int count = ((Number) header.get("chunkCount")).intValue();
+        int dimension = ((Number) header.get("dimension")).intValue();
+        return new VectorStore(dimension, sections.get("vectors"), count);
+    }
+
+    /**
+     * Read a length-prefixed UTF-8 string at an absolute position; -1 means null
+     */
+    static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Byte size of a string written by {@link SegmentWriter#writeString(String)}
+     */
+    static int stringBytes(ByteBuffer buffer, int position) {
+        return Integer.BYTES + Math.max(0, buffer.getInt(position));
+    }
+
+    /**
+     * Read-only list over the chunk records of a mapped segment
+     */
+    private static final class MappedChunkList extends AbstractList<DocumentChunk> implements RandomAccess {
+
+        private final ByteBuffer records;
+        private final ByteBuffer offsets;
+        private final ByteBuffer contents;
+        private final int size;
+
+        MappedChunkList(ByteBuffer records, ByteBuffer offsets, ByteBuffer contents, int size) {
+            this.records = records;
+            this.offsets = offsets;
+            this.contents = contents;
+            this.size = size;
+        }
+
+        @Override
+        public DocumentChunk get(int index) {
+            Objects.checkIndex(index, size);
+            int position = (int) offsets.getLong(index * Long.BYTES);
+
+            String id = readString(records, position);
+            position += stringBytes(records, position);
+            String sourceFile = readString(records, position);
+            position += stringBytes(records, position);
+            int chunkIndex = records.getInt(position);
+            position += Integer.BYTES;
+            String documentType = readString(records, position);
+            position += stringBytes(records, position);
+            String metadata = readString(records, position);
+            position += stringBytes(records, position);
+            // Chunks with identical text share one copy in the contents section
+            String content = readString(contents, records.getInt(position));
+
+            DocumentChunk chunk = new DocumentChunk(id, content, sourceFile, chunkIndex, documentType);
+            if (metadata != null) {
+                try {
+                    chunk.setMetadata(SegmentWriter.JSON.readValue(metadata, new TypeReference<HashMap<String, Object>>() {
+                    }));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Corrupt chunk metadata at ordinal " + index, e);
+                }
+            }
+            return chunk;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.vectordb;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an index segment: a sequence of named sections followed by a JSON
+ * header and a fixed-size footer. All numbers are little-endian.
+ *
+ * <pre>
+ * [section]...[header JSON][header offset: long][header length: int][format version: int][magic: int]
+ * </pre>
+ *
+ * The file is written under a temporary name and moved into place when
+ * complete, so a reader never maps a partially written segment.
+ */
+public class SegmentWriter implements Closeable {
+
+    public static final int MAGIC = 0x56444253; // "VDBS"
+    public static final int FORMAT_VERSION = 7;
+    public static final int FOOTER_BYTES = Long.BYTES + 3 * Integer.BYTES;
+
+    static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    private final Map<String, Map<String, Long>> sections = new LinkedHashMap<>();
+    private long position;
+    private String openSection;
+    private long sectionStart;
+    private boolean finished;
+
+    public SegmentWriter(Path target) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Write a complete segment for the given index parts
+     */
+    public static void write(Path target, Map<String, Object> header, List<DocumentChunk> chunks,
+                             InvertedIndex invertedIndex, MetadataIndex metadataIndex,
+                             VectorStore vectorStore) throws IOException {
+        try (SegmentWriter writer = new SegmentWriter(target)) {
+            // Chunk texts, each distinct text once; chunk records refer to them by position
+            int[] contentOffsets = new int[chunks.size()];
+            Map<String, Integer> distinctContents = new HashMap<>();
+            writer.beginSection("contents");
+            for (int i = 0; i < chunks.size(); i++) {
+                String content = chunks.get(i).getContent();
+                Integer offset = distinctContents.get(content);
+                if (offset == null) {
+                    offset = (int) (writer.position - writer.sectionStart);
+                    distinctContents.put(content, offset);
+                    writer.writeString(content);
+                }
+                contentOffsets[i] = offset;
+            }
+            writer.endSection();
+
+            // Chunk records, and a table of where each one starts
+            long[] offsets = new long[chunks.size()];
+            writer.beginSection("chunks");
+            for (int i = 0; i < chunks.size(); i++) {
+                offsets[i] = writer.position - writer.sectionStart;
+                writer.writeChunk(chunks.get(i), contentOffsets[i]);
+            }
+            writer.endSection();
+
+            writer.beginSection("chunkOffsets");
+            for (long offset : offsets) {
+                writer.writeLong(offset);
+            }
+            writer.endSection();
+
+            writer.beginSection("dictionary");
+            invertedIndex.writeDictionary(writer);
+            writer.endSection();
+
+            writer.beginSection("postings");
+            invertedIndex.writePostings(writer);
+            writer.endSection();
+
+            writer.beginSection("frequencies");
+            invertedIndex.writeFrequencies(writer);
+            writer.endSection();
+
+            writer.beginSection("documentLengths");
+            invertedIndex.writeDocumentLengths(writer);
+            writer.endSection();
+
+            writer.beginSection("metadata");
+            metadataIndex.writeTo(writer);
+            writer.endSection();
+
+            writer.beginSection("vectors");
+            vectorStore.writeTo(writer);
+            writer.endSection();
+
+            writer.finish(header);
+        }
+    }
+
+    public void beginSection(String name) {
+        openSection = name;
+        sectionStart = position;
+    }
+
+    public void endSection() {
+        Map<String, Long> section = new LinkedHashMap<>();
+        section.put("offset", sectionStart);
+        section.put("length", position - sectionStart);
+        sections.put(openSection, section);
+        openSection = null;
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+        position += Integer.BYTES;
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+        position += Long.BYTES;
+    }
+
+    public void writeFloat(float value) throws IOException {
+        ensure(Float.BYTES);
+        buffer.putFloat(value);
+        position += Float.BYTES;
+    }
+
+    /**
+     * Length-prefixed UTF-8; null is written as length -1
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    public void writeBytes(byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, length);
+            written += length;
+        }
+        position += bytes.length;
+    }
+
+    private void writeChunk(DocumentChunk chunk, int contentOffset) throws IOException {
+        writeString(chunk.getId());
+        writeString(chunk.getSourceFile());
+        writeInt(chunk.getChunkIndex());
+        writeString(chunk.getDocumentType());
+        writeString(chunk.getMetadata().isEmpty() ? null : JSON.writeValueAsString(chunk.getMetadata()));
+        writeInt(contentOffset);
+    }
+
+    /**
+     * Append the header and footer, then move the file into place
+     */
+    public void finish(Map<String, Object> header) throws IOException {
+        Map<String, Object> fullHeader = new LinkedHashMap<>(header);
+        fullHeader.put("sections", sections);
+
+        byte[] headerBytes = JSON.writeValueAsBytes(fullHeader);
+        long headerOffset = position;
+        writeBytes(headerBytes);
+        writeLong(headerOffset);
+        writeInt(headerBytes.length);
+        writeInt(FORMAT_VERSION);
+        writeInt(MAGIC);
+
+        flush();
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.vectordb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot-product kernels on the incubating Panama Vector API. Only loaded by
+ * {@link VectorKernels} when the jdk.incubator.vector module is present.
+ */
+final class SimdVectorKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /** FloatVector.fromByteBuffer left the incubator API in Java 20; later JVMs copy each row to an array */
+    private static final boolean BYTE_BUFFER_LOADS = hasByteBufferLoads();
+
+    private static final ThreadLocal<float[]> ROW = ThreadLocal.withInitial(() -> new float[0]);
+
+    private SimdVectorKernels() {
+    }
+
+    static String describe() {
+        return "SIMD " + SPECIES.vectorBitSize() + "-bit (" + SPECIES.length() + " floats)";
+    }
+
+    static float dot(float[] matrix, int offset, float[] query, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromArray(SPECIES, matrix, offset + i);
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            sum = row.fma(q, sum);
+        }
+
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += matrix[offset + i] * query[i];
+        }
+        return result;
+    }
+
+    static float dot(ByteBuffer matrix, int byteOffset, float[] query, int length) {
+        if (!BYTE_BUFFER_LOADS) {
+            float[] row = ROW.get();
+            if (row.length < length) {
+                row = new float[length];
+                ROW.set(row);
+            }
+            matrix.slice(byteOffset, length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(row, 0, length);
+            return dot(row, 0, query, length);
+        }
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromByteBuffer(SPECIES, matrix, byteOffset + i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            sum = row.fma(q, sum);
+        }
+
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += matrix.getFloat(byteOffset + i * Float.BYTES) * query[i];
+        }
+        return result;
+    }
+
+    private static boolean hasByteBufferLoads() {
+        try {
+            FloatVector.class.getMethod("fromByteBuffer", VectorSpecies.class, ByteBuffer.class, int.class, ByteOrder.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
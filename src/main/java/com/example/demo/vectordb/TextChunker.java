@@ -0,0 +1,391 @@
+package com.example.demo.vectordb;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Cuts source text into chunks sized by estimated LLM tokens.
+ *
+ * With {@link ChunkingStrategy#STRUCTURED}, text is split into sentences and
+ * lines which are packed into a chunk until the token budget is reached; a
+ * blank line closes a chunk that is at least half full, so paragraphs stay
+ * together. Chunks cut for size repeat their last sentences, up to the overlap
+ * budget, at the start of the next chunk. JSON is kept as whole objects, and
+ * an object over budget is split between its fields into smaller valid objects.
+ *
+ * {@link ChunkingStrategy#FIXED} keeps the original overlapping character
+ * windows, sized at {@link #CHARS_PER_TOKEN} characters per token.
+ */
+public class TextChunker {
+
+    /** Characters per token of typical English text, used to size fixed windows */
+    public static final int CHARS_PER_TOKEN = 4;
+
+    /** A line growing past this many characters is cut before it is complete while streaming */
+    private static final int MAX_PENDING_CHARS = 1 << 16;
+
+    private final ChunkingStrategy strategy;
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public TextChunker(ChunkingStrategy strategy, int maxTokens, int overlapTokens) {
+        if (maxTokens < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1 token: " + maxTokens);
+        }
+        this.strategy = strategy;
+        this.maxTokens = maxTokens;
+        // An overlap of half a chunk or more would make every chunk mostly a repeat
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, maxTokens / 2));
+    }
+
+    public static TextChunker of(IndexOptions options) {
+        return new TextChunker(options.getChunking(), options.getChunkTokens(), options.getChunkOverlapTokens());
+    }
+
+    /**
+     * Estimated number of tokens a GPT-style BPE tokenizer produces for the text: one per
+     * common word plus one per further six letters, one per three digits, and one per
+     * punctuation mark. Close enough to size chunks without shipping a tokenizer vocabulary.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int letters = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                letters++;
+            } else if (Character.isDigit(c)) {
+                digits++;
+            } else {
+                tokens += wordTokens(letters, digits);
+                letters = 0;
+                digits = 0;
+                if (!Character.isWhitespace(c)) {
+                    tokens++;
+                }
+            }
+        }
+        return tokens + wordTokens(letters, digits);
+    }
+
+    private static int wordTokens(int letters, int digits) {
+        return (letters == 0 ? 0 : 1 + (letters - 1) / 6) + (digits + 2) / 3;
+    }
+
+    public ChunkingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public int getOverlapTokens() {
+        return overlapTokens;
+    }
+
+    public List<String> chunk(String text) {
+        List<String> chunks = new ArrayList<>();
+        try {
+            chunk(new StringReader(text), chunks::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunks;
+    }
+
+    /**
+     * Chunk a stream while holding at most one chunk plus the current line in memory
+     */
+    public void chunk(Reader reader, Consumer<String> sink) throws IOException {
+        if (strategy == ChunkingStrategy.FIXED) {
+            chunkFixed(reader, sink);
+            return;
+        }
+
+        Packer packer = new Packer(sink);
+        StringBuilder pending = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+
+        while ((read = reader.read(buffer)) != -1) {
+            pending.append(buffer, 0, read);
+            // Hand over complete lines only, so no sentence is split between two reads
+            int end = pending.lastIndexOf("\n") + 1;
+            if (end == 0 && pending.length() > MAX_PENDING_CHARS) {
+                end = lastBreak(pending);
+            }
+            if (end > 0) {
+                packer.addText(pending.substring(0, end));
+                pending.delete(0, end);
+            }
+        }
+        packer.addText(pending.toString());
+        packer.finish();
+    }
+
+    /**
+     * Chunk a JSON value: the serialized value when it fits the budget, otherwise groups of
+     * its fields (or elements) as smaller objects (or arrays)
+     */
+    public List<String> chunkJson(JsonNode node) {
+        if (strategy == ChunkingStrategy.FIXED) {
+            return chunk(node.toString());
+        }
+        List<String> chunks = new ArrayList<>();
+        splitJson(node, chunks);
+        return chunks;
+    }
+
+    private void splitJson(JsonNode node, List<String> chunks) {
+        String json = node.toString();
+        if (estimateTokens(json) <= maxTokens) {
+            chunks.add(json);
+        } else if (node.isObject()) {
+            packMembers(node, true, chunks);
+        } else if (node.isArray()) {
+            packMembers(node, false, chunks);
+        } else {
+            chunks.addAll(chunk(node.asText()));
+        }
+    }
+
+    /**
+     * Pack the members of an object or array into as few valid JSON chunks as the budget allows
+     */
+    private void packMembers(JsonNode node, boolean object, List<String> chunks) {
+        String open = object ? "{" : "[";
+        String close = object ? "}" : "]";
+        // The brackets are one token each
+        int budget = maxTokens - 2;
+        StringBuilder group = new StringBuilder();
+        int groupTokens = 0;
+
+        Iterator<String> names = object ? node.fieldNames() : null;
+        for (JsonNode value : node) {
+            String prefix = object ? TextNode.valueOf(names.next()).toString() + ":" : "";
+            String member = prefix + value.toString();
+            int tokens = estimateTokens(member) + 1;
+
+            if (tokens > budget) {
+                // Too large on its own: split the member itself, keeping its field name on every part
+                if (groupTokens > 0) {
+                    chunks.add(open + group + close);
+                    group.setLength(0);
+                    groupTokens = 0;
+                }
+                List<String> parts = new ArrayList<>();
+                splitJson(value, parts);
+                for (String part : parts) {
+                    chunks.add(open + prefix + (value.isContainerNode() ? part : TextNode.valueOf(part).toString()) + close);
+                }
+                continue;
+            }
+            if (groupTokens + tokens > budget) {
+                chunks.add(open + group + close);
+                group.setLength(0);
+                groupTokens = 0;
+            }
+            if (groupTokens > 0) {
+                group.append(',');
+            }
+            group.append(member);
+            groupTokens += tokens;
+        }
+        if (groupTokens > 0) {
+            chunks.add(open + group + close);
+        }
+    }
+
+    /**
+     * Overlapping character windows of the original chunker
+     */
+    private void chunkFixed(Reader reader, Consumer<String> sink) throws IOException {
+        int chunkSize = maxTokens * CHARS_PER_TOKEN;
+        int overlap = overlapTokens * CHARS_PER_TOKEN;
+        StringBuilder window = new StringBuilder(chunkSize * 2);
+        char[] buffer = new char[8192];
+        int read;
+
+        while ((read = reader.read(buffer)) != -1) {
+            window.append(buffer, 0, read);
+            // Emit a full window only once more text follows it
+            while (window.length() > chunkSize) {
+                sink.accept(window.substring(0, chunkSize));
+                window.delete(0, chunkSize - overlap);
+            }
+        }
+        sink.accept(window.toString());
+    }
+
+    /**
+     * End of the last sentence in an overlong line, else of its last word, else the whole line
+     */
+    private static int lastBreak(CharSequence text) {
+        int space = -1;
+        for (int i = text.length() - 2; i >= 0; i--) {
+            if (Character.isWhitespace(text.charAt(i + 1))) {
+                if (isSentenceEnd(text.charAt(i))) {
+                    return i + 1;
+                }
+                if (space < 0) {
+                    space = i + 1;
+                }
+            }
+        }
+        return space > 0 ? space : text.length();
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private record Unit(String text, int tokens) {
+    }
+
+    /**
+     * Greedy packing of sentences and lines into chunks, carried across streamed reads
+     */
+    private final class Packer {
+
+        private final Consumer<String> sink;
+        private final List<Unit> current = new ArrayList<>();
+        private int currentTokens;
+        private int carried;
+        private boolean atLineStart = true;
+
+        Packer(Consumer<String> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Split text into units ending at a line break or after a sentence end followed by a space
+         */
+        void addText(String text) {
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                boolean end = c == '\n'
+                        || (isSentenceEnd(c) && i + 1 < text.length() && Character.isWhitespace(text.charAt(i + 1)));
+                if (end) {
+                    addUnit(text.substring(start, i + 1));
+                    start = i + 1;
+                }
+            }
+            if (start < text.length()) {
+                addUnit(text.substring(start));
+            }
+        }
+
+        private void addUnit(String text) {
+            boolean lineStart = atLineStart;
+            atLineStart = text.endsWith("\n");
+
+            if (text.isBlank()) {
+                // A blank line ends a paragraph; a chunk already half full ends with it
+                if (lineStart && atLineStart && current.size() > carried && currentTokens * 2 >= maxTokens) {
+                    emit(false);
+                } else if (!current.isEmpty()) {
+                    current.add(new Unit(text, 0));
+                }
+                return;
+            }
+
+            int tokens = estimateTokens(text);
+            if (tokens <= maxTokens) {
+                place(text, tokens);
+                return;
+            }
+
+            // A sentence over budget is cut between words, and a word over budget between characters
+            StringBuilder piece = new StringBuilder();
+            int pieceTokens = 0;
+            for (String word : text.split("(?<=\\s)(?=\\S)")) {
+                int wordTokens = estimateTokens(word);
+                if (pieceTokens + wordTokens > maxTokens && pieceTokens > 0) {
+                    place(piece.toString(), pieceTokens);
+                    piece.setLength(0);
+                    pieceTokens = 0;
+                }
+                if (wordTokens > maxTokens) {
+                    // Every character is at most one token
+                    for (int i = 0; i < word.length(); i += maxTokens) {
+                        String part = word.substring(i, Math.min(word.length(), i + maxTokens));
+                        place(part, estimateTokens(part));
+                    }
+                    continue;
+                }
+                piece.append(word);
+                pieceTokens += wordTokens;
+            }
+            if (pieceTokens > 0) {
+                place(piece.toString(), pieceTokens);
+            }
+        }
+
+        private void place(String text, int tokens) {
+            if (currentTokens + tokens > maxTokens && current.size() > carried) {
+                emit(true);
+            }
+            if (currentTokens + tokens > maxTokens) {
+                // The overlap alone leaves no room for the next unit
+                clear();
+            }
+            current.add(new Unit(text, tokens));
+            currentTokens += tokens;
+        }
+
+        void finish() {
+            if (current.size() > carried) {
+                emit(false);
+            }
+        }
+
+        /**
+         * Emit the current chunk and, when it was cut for size, start the next one with its
+         * last units up to the overlap budget
+         */
+        private void emit(boolean overlap) {
+            StringBuilder chunk = new StringBuilder();
+            for (Unit unit : current) {
+                chunk.append(unit.text());
+            }
+            String content = chunk.toString().strip();
+            if (!content.isEmpty()) {
+                sink.accept(content);
+            }
+
+            int keep = 0;
+            int keepTokens = 0;
+            if (overlap) {
+                for (int i = current.size() - 1; i > 0; i--) {
+                    int tokens = current.get(i).tokens();
+                    if (keepTokens + tokens > overlapTokens) {
+                        break;
+                    }
+                    keep++;
+                    keepTokens += tokens;
+                }
+            }
+            List<Unit> tail = new ArrayList<>(current.subList(current.size() - keep, current.size()));
+            clear();
+            current.addAll(tail);
+            currentTokens = keepTokens;
+            carried = keep;
+        }
+
+        private void clear() {
+            current.clear();
+            currentTokens = 0;
+            carried = 0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.vectordb;
+
+/**
+ * Bounded min-heap keeping the k best (ordinal, score) pairs in primitive
+ * arrays. On equal scores the lower ordinal wins, so results are stable.
+ */
+public class TopK {
+
+    private final int k;
+    private final int[] ordinals;
+    private final float[] scores;
+    private int size;
+
+    public TopK(int k) {
+        this.k = k;
+        this.ordinals = new int[k];
+        this.scores = new float[k];
+    }
+
+    public void offer(int ordinal, float score) {
+        if (k == 0) {
+            return;
+        }
+        if (size < k) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (worse(ordinals[0], scores[0], ordinal, score)) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lowest score currently kept, or negative infinity while fewer than k are held
+     */
+    public float minScore() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Empty the heap, returning the kept ordinals best first; scores are written to {@code scoresOut}
+     */
+    public int[] drain(float[] scoresOut) {
+        int count = size;
+        int[] sortedOrdinals = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            sortedOrdinals[i] = ordinals[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            ordinals[0] = ordinals[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return sortedOrdinals;
+    }
+
+    /** True when (ordinalA, scoreA) ranks below (ordinalB, scoreB) */
+    private static boolean worse(int ordinalA, float scoreA, int ordinalB, float scoreB) {
+        return scoreA < scoreB || (scoreA == scoreB && ordinalA > ordinalB);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(ordinals[index], scores[index], ordinals[parent], scores[parent])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && worse(ordinals[right], scores[right], ordinals[left], scores[left])) {
+                smallest = right;
+            }
+            if (!worse(ordinals[smallest], scores[smallest], ordinals[index], scores[index])) {
+                break;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.vectordb;
+
+/**
+ * Structure used to answer {@link SearchMode#VECTOR} queries for an index.
+ */
+public enum VectorIndexType {
+
+    /** Exact brute-force scan over every embedding */
+    FLAT,
+
+    /** Approximate nearest neighbours over an HNSW graph */
+    HNSW
+}
@@ -0,0 +1,77 @@
+package com.example.demo.vectordb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Dot products over contiguous row-major float matrices. Uses the SIMD
+ * kernels when the JVM was started with {@code --add-modules jdk.incubator.vector}
+ * and falls back to a plain loop otherwise.
+ */
+public final class VectorKernels {
+
+    private static final boolean SIMD_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorKernels() {
+    }
+
+    public static boolean isSimdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    public static String describe() {
+        return SIMD_AVAILABLE ? SimdVectorKernels.describe() : "scalar";
+    }
+
+    /**
+     * Dot product of {@code query} with the row starting at {@code offset} in {@code matrix}
+     */
+    public static float dot(float[] matrix, int offset, float[] query, int length) {
+        if (SIMD_AVAILABLE) {
+            return SimdVectorKernels.dot(matrix, offset, query, length);
+        }
+        float result = 0;
+        for (int i = 0; i < length; i++) {
+            result += matrix[offset + i] * query[i];
+        }
+        return result;
+    }
+
+    /**
+     * Dot product of {@code query} with the little-endian row starting at {@code byteOffset}
+     * in an off-heap or memory-mapped buffer
+     */
+    public static float dot(ByteBuffer matrix, int byteOffset, float[] query, int length) {
+        if (SIMD_AVAILABLE) {
+            return SimdVectorKernels.dot(matrix, byteOffset, query, length);
+        }
+        float result = 0;
+        for (int i = 0; i < length; i++) {
+            result += matrix.getFloat(byteOffset + i * Float.BYTES) * query[i];
+        }
+        return result;
+    }
+
+    /**
+     * Dot product of {@code query} with each of the first {@code rows} rows of {@code matrix}
+     */
+    public static void dotAll(float[] matrix, int rows, int dimension, float[] query, float[] scores) {
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(matrix, row * dimension, query, dimension);
+        }
+    }
+
+    /**
+     * Scale the vector in place to unit length; zero vectors are left unchanged
+     */
+    public static void normalize(float[] vector) {
+        float squaredNorm = dot(vector, 0, vector, vector.length);
+        if (squaredNorm == 0) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(squaredNorm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.vectordb;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Embeddings of one index in a single contiguous row-major float array.
+ * Row {@code i} belongs to the chunk at ordinal {@code i}. Rows are
+ * L2-normalized on insert, so a dot product is the cosine similarity.
+ * A single writer may append while other threads read published rows.
+ *
+ * Rows are kept either in a heap {@code float[]}, in a direct buffer outside
+ * the Java heap (for quantized indexes that only read full-precision rows to
+ * re-score a few candidates), or in a read-only memory-mapped segment region.
+ * Buffers hold little-endian floats.
+ */
+public class VectorStore {
+
+    private final int dimension;
+    private final boolean offHeap;
+    private final boolean mapped;
+    private volatile float[] data;
+    private volatile ByteBuffer offHeapData;
+    private volatile int size;
+
+    public VectorStore(int dimension, int expectedSize) {
+        this(dimension, expectedSize, false);
+    }
+
+    public VectorStore(int dimension, int expectedSize, boolean offHeap) {
+        this.dimension = dimension;
+        this.offHeap = offHeap;
+        this.mapped = false;
+        int capacity = Math.max(1, expectedSize) * dimension;
+        if (offHeap) {
+            this.offHeapData = allocateDirect(capacity);
+        } else {
+            this.data = new float[capacity];
+        }
+    }
+
+    /**
+     * Read-only store over {@code size} rows of an already written (e.g. memory-mapped) buffer
+     */
+    public VectorStore(int dimension, ByteBuffer rows, int size) {
+        this.dimension = dimension;
+        this.offHeap = true;
+        this.mapped = true;
+        this.offHeapData = rows.order(ByteOrder.LITTLE_ENDIAN);
+        this.size = size;
+    }
+
+    /**
+     * Append a vector and return its ordinal
+     */
+    public int add(float[] vector) {
+        if (mapped) {
+            throw new UnsupportedOperationException("Vector store is backed by a read-only segment");
+        }
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+        }
+        float[] normalized = vector.clone();
+        VectorKernels.normalize(normalized);
+        int required = (size + 1) * dimension;
+
+        if (offHeap) {
+            ByteBuffer target = offHeapData;
+            if (required * Float.BYTES > target.capacity()) {
+                ByteBuffer grown = allocateDirect(Math.max(target.capacity() / Float.BYTES * 2, required));
+                grown.put(0, target, 0, size * dimension * Float.BYTES);
+                target = grown;
+            }
+            int byteOffset = size * dimension * Float.BYTES;
+            for (int i = 0; i < dimension; i++) {
+                target.putFloat(byteOffset + i * Float.BYTES, normalized[i]);
+            }
+            offHeapData = target;
+        } else {
+            float[] target = data;
+            if (required > target.length) {
+                target = Arrays.copyOf(target, Math.max(target.length * 2, required));
+            }
+            System.arraycopy(normalized, 0, target, size * dimension, dimension);
+            data = target;
+        }
+
+        // Publish the row before the new size so readers never see a partial row
+        int ordinal = size;
+        size = ordinal + 1;
+        return ordinal;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Copy of the stored (normalized) row
+     */
+    public float[] get(int ordinal) {
+        if (offHeap) {
+            ByteBuffer buffer = offHeapData;
+            float[] row = new float[dimension];
+            int byteOffset = ordinal * dimension * Float.BYTES;
+            for (int i = 0; i < dimension; i++) {
+                row[i] = buffer.getFloat(byteOffset + i * Float.BYTES);
+            }
+            return row;
+        }
+        return Arrays.copyOfRange(data, ordinal * dimension, (ordinal + 1) * dimension);
+    }
+
+    /**
+     * Cosine similarity between the stored row and a normalized query vector
+     */
+    public float score(int ordinal, float[] query) {
+        if (offHeap) {
+            return VectorKernels.dot(offHeapData, ordinal * dimension * Float.BYTES, query, dimension);
+        }
+        return VectorKernels.dot(data, ordinal * dimension, query, dimension);
+    }
+
+    /**
+     * Exact top-k by cosine similarity over every stored row
+     */
+    public TopK topK(float[] query, int k) {
+        int rows = size;
+        TopK topK = new TopK(Math.min(k, rows));
+
+        if (offHeap) {
+            for (int ordinal = 0; ordinal < rows; ordinal++) {
+                topK.offer(ordinal, score(ordinal, query));
+            }
+            return topK;
+        }
+
+        float[] scores = new float[rows];
+        VectorKernels.dotAll(data, rows, dimension, query, scores);
+        for (int ordinal = 0; ordinal < rows; ordinal++) {
+            topK.offer(ordinal, scores[ordinal]);
+        }
+        return topK;
+    }
+
+    /**
+     * Exact top-k by cosine similarity over the rows in {@code filter}; all rows when null
+     */
+    public TopK topK(float[] query, int k, ImmutableRoaringBitmap filter) {
+        if (filter == null) {
+            return topK(query, k);
+        }
+
+        int rows = size;
+        TopK topK = new TopK(Math.min(k, filter.getCardinality()));
+        IntIterator ordinals = filter.getIntIterator();
+        while (ordinals.hasNext()) {
+            int ordinal = ordinals.next();
+            if (ordinal >= rows) {
+                break;
+            }
+            topK.offer(ordinal, score(ordinal, query));
+        }
+        return topK;
+    }
+
+    /**
+     * Exact top-k over the rows in {@code [start, end)}, e.g. one shard, that are also in
+     * {@code filter} (all of them when null)
+     */
+    public TopK topK(float[] query, int k, ImmutableRoaringBitmap filter, int start, int end) {
+        int last = Math.min(end, size);
+        TopK topK = new TopK(Math.max(0, Math.min(k, last - start)));
+
+        if (filter == null) {
+            for (int ordinal = start; ordinal < last; ordinal++) {
+                topK.offer(ordinal, score(ordinal, query));
+            }
+            return topK;
+        }
+
+        PeekableIntIterator ordinals = filter.getIntIterator();
+        ordinals.advanceIfNeeded(start);
+        while (ordinals.hasNext()) {
+            int ordinal = ordinals.next();
+            if (ordinal >= last) {
+                break;
+            }
+            topK.offer(ordinal, score(ordinal, query));
+        }
+        return topK;
+    }
+
+    /**
+     * Write the rows as little-endian floats, the layout read back by {@link #VectorStore(int, ByteBuffer, int)}
+     */
+    public void writeTo(SegmentWriter writer) throws IOException {
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            for (float component : get(ordinal)) {
+                writer.writeFloat(component);
+            }
+        }
+    }
+
+    public long getHeapBytes() {
+        return offHeap ? 0 : (long) data.length * Float.BYTES;
+    }
+
+    public long getOffHeapBytes() {
+        return offHeap && !mapped ? offHeapData.capacity() : 0;
+    }
+
+    public long getMappedBytes() {
+        return mapped ? offHeapData.capacity() : 0;
+    }
+
+    public long getMemoryBytes() {
+        return getHeapBytes() + getOffHeapBytes();
+    }
+
+    private static ByteBuffer allocateDirect(int floats) {
+        return ByteBuffer.allocateDirect(floats * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
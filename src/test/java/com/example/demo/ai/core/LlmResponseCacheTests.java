@@ -0,0 +1,146 @@
+package com.example.demo.ai.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.ai.converters.SightseeingStructuredOutputConverter;
+import com.example.demo.ai.templates.SightseeingPromptTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+
+class LlmResponseCacheTests {
+
+    private static final String GOA = "Goa has beaches, Fort Aguada and the Basilica of Bom Jesus.";
+    private static final String JAIPUR = "Jaipur has the Amber Fort, Hawa Mahal and the City Palace.";
+
+    private final LlmResponseCache cache = new LlmResponseCache();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void answersRepeatedPromptsFromTheCache() {
+        LlmCacheOptions options = new LlmCacheOptions("/chat");
+
+        assertEquals("answer 1", ask(options, "Flights from Mumbai?"));
+        assertEquals("answer 1", ask(options, "Flights from Mumbai?"));
+
+        assertEquals(1, calls.get());
+        assertEquals(1L, endpointStats("/chat").get("exactHits"));
+        assertEquals(1L, endpointStats("/chat").get("misses"));
+    }
+
+    @Test
+    void matchesExactlyByDefault() {
+        LlmCacheOptions options = new LlmCacheOptions("/flights");
+
+        assertEquals("answer 1", ask(options, "Flights from Mumbai to Delhi"));
+        // Same words, opposite direction
+        assertEquals("answer 2", ask(options, "Flights from Delhi to Mumbai"));
+        assertEquals(0L, endpointStats("/flights").get("semanticHits"));
+    }
+
+    @Test
+    void semanticEndpointsReuseSimilarQueriesOverTheSameContext() {
+        LlmCacheOptions options = new LlmCacheOptions("/sightseeing", true);
+
+        assertEquals("answer 1", ask(options, "Sightseeing places in Goa", GOA));
+        assertEquals("answer 1", ask(options, "sightseeing places in goa", GOA));
+        assertEquals("answer 2", ask(options, "Street food in Kolkata", GOA));
+        // The same query over other retrieved chunks
+        assertEquals("answer 3", ask(options, "Sightseeing places in Goa", "Goa casinos and carnival."));
+
+        assertEquals(1L, endpointStats("/sightseeing").get("semanticHits"));
+        assertEquals(3, endpointStats("/sightseeing").get("semanticEntries"));
+    }
+
+    @Test
+    void semanticEndpointsMatchExactlyWithoutAQuery() {
+        LlmCacheOptions options = new LlmCacheOptions("/sightseeing", true);
+
+        assertEquals("answer 1", ask(options, "Sightseeing places in Goa"));
+        assertEquals("answer 2", ask(options, "sightseeing places in goa"));
+        assertEquals(0, endpointStats("/sightseeing").get("semanticEntries"));
+    }
+
+    @Test
+    void differentCitiesMissThroughTheSightseeingTemplate() {
+        SightseeingPromptTemplate template =
+                new SightseeingPromptTemplate(new SightseeingStructuredOutputConverter(new ObjectMapper()));
+        LlmCacheOptions options = new LlmCacheOptions("/api/sightseeing/search", true);
+
+        assertEquals("answer 1", ask(template, options, "Places to visit in Goa", GOA));
+        // Almost all of the prompt is the template, but only the query and context decide a hit
+        assertEquals("answer 2", ask(template, options, "Places to visit in Jaipur", JAIPUR));
+        assertEquals("answer 1", ask(template, options, "places to visit in goa", GOA));
+
+        assertEquals(1L, endpointStats("/api/sightseeing/search").get("semanticHits"));
+        assertEquals(2L, endpointStats("/api/sightseeing/search").get("misses"));
+    }
+
+    @Test
+    void endpointsDoNotShareResponses() {
+        ask(new LlmCacheOptions("/a", true), "Sightseeing places in Goa", GOA);
+        assertEquals("answer 2", ask(new LlmCacheOptions("/b", true), "Sightseeing places in Goa", GOA));
+    }
+
+    @Test
+    void nullOptionsAreNeverCached() {
+        ask(null, "Hello");
+        ask(null, "Hello");
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void expiresAfterTheEndpointTtl() throws Exception {
+        LlmCacheOptions options = new LlmCacheOptions("/short", true);
+        options.setTtlSeconds(1);
+
+        ask(options, "Sightseeing places in Goa", GOA);
+        Thread.sleep(1200);
+
+        assertEquals("answer 2", ask(options, "Sightseeing places in Goa", GOA));
+    }
+
+    @Test
+    void evictedEntriesTakeTheirVectorsAlong() {
+        ReflectionTestUtils.setField(cache, "maxBytes", 4096L);
+        cache.initialize();
+        LlmCacheOptions options = new LlmCacheOptions("/small", true);
+
+        for (int i = 0; i < 50; i++) {
+            // Each prompt repeats its own word, so no two are similar
+            ask(options, ("word" + i + " ").repeat(40), GOA);
+        }
+        ((Cache<?, ?>) ReflectionTestUtils.getField(cache, "responses")).cleanUp();
+
+        long entries = (long) cache.getStats().get("entries");
+        assertTrue(entries < 50, entries + " entries");
+        assertEquals((int) entries, endpointStats("/small").get("semanticEntries"));
+        assertTrue((long) cache.getStats().get("evictions") > 0);
+        assertEquals(50L, endpointStats("/small").get("misses"));
+    }
+
+    private String ask(LlmCacheOptions options, String prompt) {
+        return cache.get(options, prompt, () -> "answer " + calls.incrementAndGet());
+    }
+
+    // A prompt that wraps the query and the retrieved context, as the sightseeing search does
+    private String ask(LlmCacheOptions options, String query, String context) {
+        return ask(options.forQuery(query, context), query + "\n" + context);
+    }
+
+    private String ask(SightseeingPromptTemplate template, LlmCacheOptions options, String query, String context) {
+        String prompt = template.createSightseeingSearchPrompt(query, context).getContents();
+        return ask(options.forQuery(query, context), prompt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> endpointStats(String endpoint) {
+        return (Map<String, Object>) ((Map<String, Object>) cache.getStats().get("endpoints")).get(endpoint);
+    }
+}
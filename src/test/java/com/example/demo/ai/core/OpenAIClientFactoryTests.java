@@ -0,0 +1,152 @@
+package com.example.demo.ai.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * Runs the pooled client against a local stub of the Azure OpenAI chat completions API.
+ * The SDK only sends API keys over HTTPS, so the stub serves a self-signed certificate
+ * that the test trusts through the default trust store properties.
+ */
+class OpenAIClientFactoryTests {
+
+    private static final String COMPLETION = """
+            {"id":"chatcmpl-stub","object":"chat.completion","created":1700000000,"model":"gpt-4o-mini",
+             "choices":[{"index":0,"message":{"role":"assistant","content":"Hello from the stub"},"finish_reason":"stop"}],
+             "usage":{"prompt_tokens":5,"completion_tokens":4,"total_tokens":9}}
+            """;
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private HttpsServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private OpenAIClientFactory factory;
+    private String previousTrustStore;
+    private String previousTrustStorePassword;
+
+    @BeforeEach
+    void startStub(@TempDir Path dir) throws Exception {
+        Path keyStore = dir.resolve("stub.p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-storetype", "PKCS12", "-keystore", keyStore.toString(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .inheritIO()
+                .start();
+        assertEquals(0, keytool.waitFor());
+
+        KeyStore keys = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keyStore)) {
+            keys.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keys, PASSWORD);
+        SSLContext ssl = SSLContext.getInstance("TLS");
+        ssl.init(keyManagers.getKeyManagers(), null, null);
+
+        // The client builds its TLS context from the default trust store
+        previousTrustStore = System.setProperty("javax.net.ssl.trustStore", keyStore.toString());
+        previousTrustStorePassword = System.setProperty("javax.net.ssl.trustStorePassword", new String(PASSWORD));
+
+        server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(ssl));
+        server.createContext("/", this::handle);
+        server.start();
+
+        OpenAIConfig config = new OpenAIConfig();
+        ReflectionTestUtils.setField(config, "endpoint", "https://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(config, "apiKey", "test-key");
+        ReflectionTestUtils.setField(config, "model", "gpt-4o-mini");
+        ReflectionTestUtils.setField(config, "maxTokens", 100);
+        ReflectionTestUtils.setField(config, "temperature", 0.0);
+        ReflectionTestUtils.setField(config, "topP", 1.0);
+        factory = new OpenAIClientFactory(config);
+    }
+
+    @AfterEach
+    void stopStub() {
+        factory.openAIConnectionPool().close();
+        server.stop(0);
+        restore("javax.net.ssl.trustStore", previousTrustStore);
+        restore("javax.net.ssl.trustStorePassword", previousTrustStorePassword);
+    }
+
+    private static void restore(String property, String value) {
+        if (value == null) {
+            System.clearProperty(property);
+        } else {
+            System.setProperty(property, value);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        boolean completion = exchange.getRequestURI().getPath().endsWith("/chat/completions");
+        byte[] body = (completion ? COMPLETION : "{\"error\":\"not found\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(completion ? 200 : 404, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    void reusesOneModelAndOneConnection() throws InterruptedException {
+        assertEquals(404, factory.warmUp().block());
+        awaitIdle();
+
+        AzureOpenAiChatModel model = factory.chatModel();
+        assertSame(model, factory.chatModelFor("gpt-4o-mini"));
+        for (int i = 0; i < 3; i++) {
+            String answer = model.call(new Prompt("Hi")).getResult().getOutput().getText();
+            assertEquals("Hello from the stub", answer);
+            awaitIdle();
+        }
+
+        // The warm-up connection served every chat request
+        assertEquals(1, clientPorts.size());
+        Map<String, Object> metrics = factory.openAIConnectionPool().getMetrics();
+        assertEquals(1, metrics.get("allocated"));
+        assertEquals(0, metrics.get("active"));
+        assertEquals(1, metrics.get("idle"));
+        assertEquals(0, metrics.get("pendingAcquires"));
+    }
+
+    // A connection goes back to the pool on its event loop, shortly after the response is read
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((int) factory.openAIConnectionPool().getMetrics().get("active") > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
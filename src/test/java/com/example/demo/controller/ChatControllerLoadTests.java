@@ -0,0 +1,136 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.demo.ai.core.LlmCacheOptions;
+import com.example.demo.ai.core.SpringAIChatClient;
+import com.example.demo.ai.core.VirtualThreadConfig;
+
+/**
+ * Holds many chat requests in flight at once, each blocked on a simulated LLM
+ * call, and counts how many the node serves concurrently. On platform threads
+ * that is capped by the Tomcat pool, so the requests take several rounds of
+ * LLM latency; on virtual threads every request is in flight together and
+ * they all finish in well under that.
+ */
+class ChatControllerLoadTests {
+
+    private static final int REQUESTS = 200;
+    private static final long LLM_LATENCY_MS = 400;
+    private static final int PLATFORM_THREADS = 20;
+
+    /** The least time the platform pool needs: one round of LLM latency per pool's worth of requests */
+    private static final long PLATFORM_ROUNDS_MS = (REQUESTS / PLATFORM_THREADS) * LLM_LATENCY_MS;
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=false",
+            "server.tomcat.threads.max=" + PLATFORM_THREADS,
+            "openai.http.warm-up=false"
+    })
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @MockitoBean
+        private SpringAIChatClient chatClient;
+
+        @Test
+        void capsConcurrentLlmRequestsAtTheRequestPool() {
+            Load load = measure("platform", port, chatClient);
+
+            assertTrue(load.peak() <= PLATFORM_THREADS, "peak " + load.peak());
+            assertTrue(load.elapsedMs() >= PLATFORM_ROUNDS_MS, load.elapsedMs() + "ms");
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=true",
+            "server.tomcat.threads.max=" + PLATFORM_THREADS,
+            "openai.http.warm-up=false"
+    })
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @MockitoBean
+        private SpringAIChatClient chatClient;
+
+        @Test
+        void holdsEveryLlmRequestInFlightAtOnce() {
+            assumeTrue(VirtualThreadConfig.isSupported(), "virtual threads need Java 21+");
+
+            Load load = measure("virtual", port, chatClient);
+
+            // Far beyond what the platform pool could hold, and faster than its rounds allow
+            assertTrue(load.peak() > PLATFORM_THREADS, "peak " + load.peak());
+            assertTrue(load.elapsedMs() < PLATFORM_ROUNDS_MS, load.elapsedMs() + "ms");
+        }
+    }
+
+    private record Load(int peak, long elapsedMs) {
+    }
+
+    private static Load measure(String mode, int port, SpringAIChatClient chatClient) {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Mockito.when(chatClient.ask(ArgumentMatchers.anyString(), ArgumentMatchers.any(LlmCacheOptions.class)))
+                .thenAnswer(invocation -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(LLM_LATENCY_MS);
+                        return "stub answer";
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // The first round pays for class loading, JIT and opening connections
+        assertEquals(REQUESTS, sendConcurrently(client, port));
+        peak.set(0);
+
+        long start = System.currentTimeMillis();
+        long ok = sendConcurrently(client, port);
+        long elapsed = System.currentTimeMillis() - start;
+
+        System.out.println("📈 " + REQUESTS + " requests with " + LLM_LATENCY_MS + "ms LLM latency on " + mode +
+                           " threads: peak " + peak.get() + " in flight (platform thread cap " + PLATFORM_THREADS +
+                           "), " + elapsed + "ms");
+
+        assertEquals(REQUESTS, ok);
+        return new Load(peak.get(), elapsed);
+    }
+
+    private static long sendConcurrently(HttpClient client, int port) {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/chat/message?prompt=question" + i)).build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        return responses.stream().map(CompletableFuture::join).filter(response -> response.statusCode() == 200).count();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Streams a stubbed token flux through {@link SseStreams} behind a minimal controller.
+ */
+class SseStreamsTests {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final SseStreams sseStreams = new SseStreams(executor);
+
+    private Flux<String> tokens;
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController()).build();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sendsEachTokenThenDone() throws Exception {
+        tokens = Flux.just("Hello", " world\n");
+
+        String body = streamedBody();
+
+        assertTrue(body.contains("event:token\ndata:{\"content\":\"Hello\"}"), body);
+        // Leading spaces and newlines survive as JSON
+        assertTrue(body.contains("event:token\ndata:{\"content\":\" world\\n\"}"), body);
+        assertTrue(body.endsWith("event:done\ndata:\n\n"), body);
+    }
+
+    @Test
+    void reportsAFailedGenerationAsAnErrorEvent() throws Exception {
+        tokens = Flux.concat(Flux.just("Goa"), Flux.error(new IllegalStateException("model unavailable")));
+
+        String body = streamedBody();
+
+        assertTrue(body.contains("data:{\"content\":\"Goa\"}"), body);
+        assertTrue(body.endsWith("event:error\ndata:model unavailable\n\n"), body);
+        assertFalse(body.contains("event:done"), body);
+    }
+
+    @Test
+    void cancelsTheGenerationWhenTheStreamCompletesEarly() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        tokens = Flux.interval(Duration.ofMillis(10)).map(String::valueOf).doOnCancel(cancelled::countDown);
+
+        MvcResult result = mockMvc.perform(get("/stream")).andReturn();
+        // The client goes away
+        result.getRequest().getAsyncContext().complete();
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    private String streamedBody() throws Exception {
+        MvcResult result = mockMvc.perform(get("/stream")).andReturn();
+        result.getAsyncResult(5000);
+        return result.getResponse().getContentAsString();
+    }
+
+    @RestController
+    class StreamController {
+
+        @GetMapping("/stream")
+        SseEmitter stream() {
+            return sseStreams.stream("test", tokens);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.entities.Flight;
+
+/**
+ * Looks up flights from several cities against a stubbed {@link FlightAIService}.
+ */
+class SightseeingServiceTests {
+
+    private final FlightAIService flightAIService = mock(FlightAIService.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SightseeingService service =
+            new SightseeingService(null, null, null, null, null, flightAIService, null, executor);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void leavesOutCitiesThatFail() {
+        when(flightAIService.searchFlight(isNull(), anyString(), isNull()))
+                .thenAnswer(invocation -> List.of(flight(invocation.getArgument(1))));
+        when(flightAIService.searchFlight(isNull(), eq("Atlantis"), isNull()))
+                .thenThrow(new IllegalStateException("unknown city"));
+
+        assertEquals(List.of("Goa", "Delhi"), departures(searchFlightsFromCities("Goa", "Atlantis", "Delhi")));
+    }
+
+    @Test
+    void leavesOutCitiesThatTimeOut() {
+        ReflectionTestUtils.setField(service, "cityTimeoutMs", 100L);
+        when(flightAIService.searchFlight(isNull(), anyString(), isNull())).thenAnswer(invocation -> {
+            String city = invocation.getArgument(1);
+            Thread.sleep(city.startsWith("Slow") ? 2000 : 20);
+            return List.of(flight(city));
+        });
+
+        assertEquals(List.of("Goa", "Delhi"), departures(searchFlightsFromCities("Goa", "Slow1", "Delhi")));
+    }
+
+    @Test
+    void timedOutLookupsKeepTheirPermitUntilTheyReturn() {
+        ReflectionTestUtils.setField(service, "flightLookupConcurrency", 2);
+        ReflectionTestUtils.setField(service, "cityTimeoutMs", 100L);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(flightAIService.searchFlight(isNull(), any(), isNull())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                String city = invocation.getArgument(1);
+                // The slow lookups ignore being interrupted, like a blocking client might
+                sleepUninterruptibly(city.startsWith("Slow") ? 400 : 20);
+                return List.of(flight(city));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        List<Flight> flights = searchFlightsFromCities("Slow1", "Slow2", "Goa", "Delhi", "Pune");
+
+        assertEquals(List.of("Goa", "Delhi", "Pune"), departures(flights));
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void timeoutStartsWhenTheLookupRuns() throws Exception {
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        try {
+            SightseeingService queued = new SightseeingService(null, null, null, null, null, flightAIService, null, busy);
+            ReflectionTestUtils.setField(queued, "cityTimeoutMs", 200L);
+            when(flightAIService.searchFlight(isNull(), anyString(), isNull()))
+                    .thenAnswer(invocation -> List.of(flight(invocation.getArgument(1))));
+            // Holds the only thread for longer than the city timeout
+            CountDownLatch occupied = new CountDownLatch(1);
+            busy.execute(() -> {
+                occupied.countDown();
+                sleepUninterruptibly(400);
+            });
+            assertTrue(occupied.await(5, TimeUnit.SECONDS));
+
+            List<Flight> flights = ReflectionTestUtils.invokeMethod(queued, "searchFlightsFromCities", List.of("Goa"));
+
+            assertEquals(List.of("Goa"), departures(flights));
+        } finally {
+            busy.shutdownNow();
+        }
+    }
+
+    private List<Flight> searchFlightsFromCities(String... cities) {
+        return ReflectionTestUtils.invokeMethod(service, "searchFlightsFromCities", List.of(cities));
+    }
+
+    private static Flight flight(String from) {
+        Flight flight = new Flight();
+        flight.setDepartureCity(from);
+        return flight;
+    }
+
+    private static List<String> departures(List<Flight> flights) {
+        return flights.stream().map(Flight::getDepartureCity).toList();
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        boolean interrupted = false;
+        while (System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
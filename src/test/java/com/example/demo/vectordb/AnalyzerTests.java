@@ -0,0 +1,38 @@
+package com.example.demo.vectordb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AnalyzerTests {
+
+    private final Analyzer analyzer = Analyzer.standard();
+
+    @Test
+    void joinsKnownDesignatorsInAnyCase() {
+        assertEquals(List.of("ai202"), analyzer.analyze("AI 202"));
+        assertEquals(List.of("ai202"), analyzer.analyze("ai 202"));
+        assertEquals(List.of("6e101"), analyzer.analyze("6e-101"));
+        assertEquals(analyzer.analyze("AI202 Delhi"), analyzer.analyze("ai 202 delhi"));
+    }
+
+    @Test
+    void joinsOtherDesignatorsOnlyAfterFlightWord() {
+        assertEquals(List.of("flight", "xy12"), analyzer.analyze("flight XY 12"));
+        assertEquals(List.of("xy", "12"), analyzer.analyze("XY 12"));
+    }
+
+    @Test
+    void leavesOrdinaryWordsAndNumbersApart() {
+        assertEquals(List.of("10", "day"), analyzer.analyze("TO 10 days"));
+        assertEquals(List.of("flight", "10", "city"), analyzer.analyze("flights to 10 cities"));
+        assertEquals(List.of("depart", "10", "am"), analyzer.analyze("depart AT 10 AM"));
+    }
+
+    @Test
+    void normalizesAndStemsTerms() {
+        assertEquals(List.of("cafe", "beach", "city"), analyzer.analyze("Café the beaches, cities"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.chunk;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompactChunkListTests {
+
+    @TempDir
+    Path segmentDir;
+
+    private final List<DocumentChunk> chunks = List.of(
+            chunk(0, "Flight AI202 from Mumbai to Delhi.", "flights.json", Map.of("array_index", 0, "airline", "Air India")),
+            chunk(1, "Flight 6E101 from Delhi to Goa.", "flights.json", Map.of("array_index", 1, "airline", "IndiGo")),
+            chunk(2, "Flight AI202 from Mumbai to Delhi.", "copy.json", Map.of("array_index", 2, "price", 4500.5)),
+            chunk(3, "Goa has beaches.", "guide.txt", Map.of()));
+
+    @Test
+    void materializesTheSameChunks() {
+        for (boolean offHeap : new boolean[] { false, true }) {
+            CompactChunkList compact = CompactChunkList.build(chunks, offHeap);
+
+            assertEquals(offHeap, compact.isOffHeap());
+            assertEquals(chunks.size(), compact.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                DocumentChunk expected = chunks.get(i);
+                DocumentChunk actual = compact.get(i);
+                assertEquals(expected.getId(), actual.getId());
+                assertEquals(expected.getContent(), compact.getContent(i));
+                assertEquals(expected.getContent(), actual.getContent());
+                assertEquals(expected.getSourceFile(), actual.getSourceFile());
+                assertEquals(expected.getChunkIndex(), actual.getChunkIndex());
+                assertEquals(expected.getDocumentType(), actual.getDocumentType());
+                assertEquals(expected.getMetadata(), actual.getMetadata());
+            }
+        }
+    }
+
+    @Test
+    void storesIdenticalTextsOnce() {
+        CompactChunkList compact = CompactChunkList.build(chunks, false);
+
+        assertEquals(3, compact.getDistinctContentCount());
+        assertEquals(1, compact.getDuplicateCount());
+    }
+
+    @Test
+    void keepsMetadataInTypedColumns() {
+        Map<String, String> columns = CompactChunkList.build(chunks, false).getMetadataColumns();
+
+        assertEquals("int", columns.get("array_index"));
+        assertEquals("string", columns.get("airline"));
+        assertEquals("object", columns.get("price"));
+        assertNull(CompactChunkList.build(chunks, false).get(3).getMetadata().get("airline"));
+    }
+
+    @Test
+    void segmentsStoreIdenticalTextsOnce() throws Exception {
+        Path segment = segmentDir.resolve("chunks.seg");
+        List<DocumentChunk> repeated = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            repeated.add(chunk(i, "Goa has beaches.", "guide.txt", Map.of()));
+        }
+        VectorStore vectors = new VectorStore(4, repeated.size());
+        for (int i = 0; i < repeated.size(); i++) {
+            vectors.add(new float[] { 1, 0, 0, 0 });
+        }
+        SegmentWriter.write(segment, Map.of("chunkCount", repeated.size()), repeated, InvertedIndex.build(repeated),
+                MetadataIndex.build(repeated), vectors);
+
+        SegmentReader reader = SegmentReader.open(segment);
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Number>> sections = (Map<String, Map<String, Number>>) reader.getHeader().get("sections");
+        assertEquals(Integer.BYTES + "Goa has beaches.".length(), sections.get("contents").get("length").intValue());
+        List<DocumentChunk> mapped = reader.readChunks();
+        assertEquals(repeated.size(), mapped.size());
+        assertEquals("Goa has beaches.", mapped.get(99).getContent());
+        assertEquals("chunk-99", mapped.get(99).getId());
+        assertTrue(mapped.get(0).getMetadata().isEmpty());
+    }
+}
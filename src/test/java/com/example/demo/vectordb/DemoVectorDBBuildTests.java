@@ -0,0 +1,113 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.chunks;
+import static com.example.demo.vectordb.VectorDBFixtures.sourceFiles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds indexes from text and JSON files, without segments.
+ */
+class DemoVectorDBBuildTests {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void parallelBuildMatchesSingleThreadedBuild() throws Exception {
+        String[] places = {"Goa beaches", "Kerala backwaters", "Delhi forts", "Jaipur palaces", "Mumbai promenade"};
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(dataDir.resolve("place" + i + ".txt"),
+                    places[i % places.length] + " and markets, visit number " + i + ".\n\nMore about it here.");
+        }
+        Files.writeString(dataDir.resolve("flights.json"), "[{\"from\": \"Goa\", \"to\": \"Delhi\"}]");
+
+        DemoVectorDB sequential = newVectorDB(1);
+        DemoVectorDB parallel = newVectorDB(4);
+        Map<String, Object> sequentialStats = sequential.createIndex("places", dataDir.toString());
+        Map<String, Object> parallelStats = parallel.createIndex("places", dataDir.toString());
+
+        assertEquals(1, sequentialStats.get("parallelism"));
+        assertEquals(4, parallelStats.get("parallelism"));
+        assertEquals(21, parallelStats.get("files"));
+        assertEquals(sequentialStats.get("chunks"), parallelStats.get("chunks"));
+        // Same chunks in the same file order
+        assertEquals(chunkIds(sequential), chunkIds(parallel));
+        for (SearchMode mode : List.of(SearchMode.BM25, SearchMode.VECTOR)) {
+            assertEquals(sourceFiles(sequential.search("places", "forts and markets", mode)),
+                         sourceFiles(parallel.search("places", "forts and markets", mode)));
+        }
+    }
+
+    @Test
+    void streamsJsonArraysOneItemAtATime() throws Exception {
+        Files.writeString(dataDir.resolve("flights.json"),
+                "[{\"flightNo\": \"AI202\", \"from\": \"Mumbai\"}, {\"flightNo\": \"6E101\", \"from\": \"Goa\"}]");
+        Files.writeString(dataDir.resolve("airline.json"),
+                "{\"airline\": \"Air India\", \"hubs\": [\"DEL\", \"BOM\"], \"fleet\": [{\"type\": \"A320\"}, {\"type\": \"B787\"}]}");
+
+        DemoVectorDB vectorDB = newVectorDB(2);
+        vectorDB.createIndex("flights", dataDir.toString());
+        List<DocumentChunk> chunks = chunks(vectorDB, "flights");
+
+        DocumentChunk second = find(chunks, "flights.json_item_1_chunk_0");
+        assertTrue(second.getContent().contains("6E101"), second.getContent());
+        assertEquals(1, second.getMetadata().get("array_index"));
+
+        // Objects of a top-level array field are items; the other fields stay together
+        DocumentChunk fleet = find(chunks, "airline.json_fleet_1_chunk_0");
+        assertEquals("fleet", fleet.getMetadata().get("array_field"));
+        assertTrue(fleet.getContent().contains("B787"), fleet.getContent());
+        assertTrue(chunks.stream().anyMatch(chunk -> chunk.getContent().contains("Air India") && chunk.getContent().contains("BOM")));
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getDocumentType().equals("json")));
+    }
+
+    @Test
+    void skipsMalformedJsonFiles() throws Exception {
+        Files.writeString(dataDir.resolve("broken.json"), "[{\"flightNo\": \"AI202\"");
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches and forts.");
+
+        DemoVectorDB vectorDB = newVectorDB(2);
+        vectorDB.createIndex("places", dataDir.toString());
+
+        assertEquals(List.of("goa.txt"), sourceFiles(vectorDB.search("places", "goa", SearchMode.BM25)));
+        assertTrue(vectorDB.search("places", "ai202", SearchMode.BM25).getHits().isEmpty());
+    }
+
+    @Test
+    void indexesNothingOfAJsonArrayCutOffAfterACompleteElement() throws Exception {
+        Files.writeString(dataDir.resolve("broken.json"),
+                "[{\"flightNo\": \"AI202\", \"from\": \"Mumbai\"}, {\"flightNo\": \"6E1");
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches and forts.");
+
+        DemoVectorDB vectorDB = newVectorDB(2);
+        vectorDB.createIndex("places", dataDir.toString());
+
+        assertEquals(List.of("goa.txt"), sourceFiles(chunks(vectorDB, "places")));
+        assertTrue(vectorDB.search("places", "ai202", SearchMode.BM25).getHits().isEmpty());
+    }
+
+    private static DemoVectorDB newVectorDB(int buildParallelism) {
+        DemoVectorDB vectorDB = VectorDBFixtures.newVectorDB();
+        ReflectionTestUtils.setField(vectorDB, "buildParallelism", buildParallelism);
+        return vectorDB;
+    }
+
+    private static List<String> chunkIds(DemoVectorDB vectorDB) {
+        return chunks(vectorDB, "places").stream().map(DocumentChunk::getId).toList();
+    }
+
+    private static DocumentChunk find(List<DocumentChunk> chunks, String id) {
+        return chunks.stream().filter(chunk -> chunk.getId().equals(id)).findFirst()
+                .orElseThrow(() -> new AssertionError(id + " not in " + chunks.stream().map(DocumentChunk::getId).toList()));
+    }
+}
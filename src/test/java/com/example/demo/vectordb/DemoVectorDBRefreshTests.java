@@ -0,0 +1,98 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.newVectorDB;
+import static com.example.demo.vectordb.VectorDBFixtures.sourceFiles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Re-indexes a data path after files are added, changed and deleted.
+ */
+class DemoVectorDBRefreshTests {
+
+    @TempDir
+    Path dataDir;
+
+    @TempDir
+    Path segmentDir;
+
+    private final AtomicInteger embedded = new AtomicInteger();
+
+    private DemoVectorDB vectorDB;
+
+    @BeforeEach
+    void createIndex() throws Exception {
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches and forts.");
+        Files.writeString(dataDir.resolve("kerala.txt"), "Kerala backwaters and houseboats.");
+        Files.writeString(dataDir.resolve("delhi.txt"), "Delhi forts and markets.");
+
+        vectorDB = newVectorDB(segmentDir);
+        vectorDB.setEmbedder(new HashingEmbedder() {
+            @Override
+            public float[] embed(String text) {
+                embedded.incrementAndGet();
+                return super.embed(text);
+            }
+        });
+        vectorDB.createIndex("places", dataDir.toString());
+    }
+
+    @Test
+    void reembedsOnlyChangedFiles() throws Exception {
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa casinos and carnival.");
+        Files.writeString(dataDir.resolve("jaipur.txt"), "Jaipur palaces and forts.");
+        Files.delete(dataDir.resolve("delhi.txt"));
+
+        Map<String, Object> stats = vectorDB.refreshIndex("places");
+
+        assertEquals(1, stats.get("filesAdded"));
+        assertEquals(1, stats.get("filesChanged"));
+        assertEquals(1, stats.get("filesDeleted"));
+        assertEquals(1, stats.get("filesUnchanged"));
+        assertEquals(List.of("jaipur.txt"), sourceFiles(vectorDB.search("places", "forts", SearchMode.KEYWORD)));
+        assertEquals(List.of("goa.txt"), sourceFiles(vectorDB.search("places", "casinos", SearchMode.KEYWORD)));
+        assertTrue(vectorDB.search("places", "markets", SearchMode.KEYWORD).getResults().isEmpty());
+    }
+
+    @Test
+    void unchangedFilesKeepTheirEmbeddings() throws Exception {
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa casinos and carnival.");
+        embedded.set(0);
+
+        vectorDB.refreshIndex("places");
+
+        // Only the changed file is embedded again
+        assertEquals(1, embedded.get());
+        assertEquals("kerala.txt", vectorDB.search("places", "Kerala backwaters and houseboats.", SearchMode.VECTOR)
+                .getResults().get(0).getSourceFile());
+    }
+
+    @Test
+    void refreshWithoutChangesKeepsTheIndex() {
+        Map<String, Object> stats = vectorDB.refreshIndex("places");
+
+        assertEquals(0, stats.get("filesAdded"));
+        assertEquals(0, stats.get("filesChanged"));
+        assertEquals(0, stats.get("filesDeleted"));
+        assertEquals(3, stats.get("filesUnchanged"));
+    }
+
+    @Test
+    void openOrCreateRefreshesAChangedDataPath() throws Exception {
+        Files.writeString(dataDir.resolve("kerala.txt"), "Kerala spices and tea gardens.");
+
+        vectorDB.openOrCreateIndex("places", dataDir.toString());
+
+        assertEquals(List.of("kerala.txt"), sourceFiles(vectorDB.search("places", "spices", SearchMode.KEYWORD)));
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.newVectorDB;
+import static com.example.demo.vectordb.VectorDBFixtures.sourceFiles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Searches a small index built from text files, one chunk per file, without segments.
+ */
+class DemoVectorDBSearchTests {
+
+    @TempDir
+    Path dataDir;
+
+    private DemoVectorDB vectorDB;
+
+    @BeforeEach
+    void createIndex() throws Exception {
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches beaches beaches and forts.");
+        Files.writeString(dataDir.resolve("kerala.txt"), "Kerala backwaters and a beach at Kovalam with palm trees and houseboats.");
+        Files.writeString(dataDir.resolve("mumbai.txt"), "Mumbai seaside promenade at Marine Drive.");
+        Files.writeString(dataDir.resolve("delhi.txt"), "Delhi forts and markets.");
+
+        vectorDB = newVectorDB();
+        vectorDB.createIndex("places", dataDir.toString());
+    }
+
+    @Test
+    void keywordSearchScoresOnlyChunksWithAQueryTerm() {
+        assertEquals(List.of("delhi.txt", "goa.txt"), sourceFiles(vectorDB.search("places", "Forts MARKETS", SearchMode.KEYWORD)));
+        assertEquals(List.of("kerala.txt"), sourceFiles(vectorDB.search("places", "backwaters", SearchMode.KEYWORD)));
+        assertTrue(vectorDB.search("places", "volcano", SearchMode.KEYWORD).getResults().isEmpty());
+        // The plain search API is keyword search
+        assertEquals(sourceFiles(vectorDB.search("places", "forts", SearchMode.KEYWORD)),
+                     sourceFiles(vectorDB.search("places", "forts")));
+    }
+
+    @Test
+    void linearScanKeepsTheOriginalSubstringRule() {
+        // "sea" is only a substring of "seaside", never an analyzed term
+        assertEquals(List.of("mumbai.txt"), sourceFiles(vectorDB.search("places", "sea", SearchMode.LINEAR_SCAN)));
+        assertTrue(vectorDB.search("places", "sea", SearchMode.BM25).getHits().isEmpty());
+    }
+
+    @Test
+    void vectorSearchRanksTheMostSimilarChunkFirst() {
+        SearchResult result = vectorDB.search("places", "Kerala backwaters and a beach at Kovalam", SearchMode.VECTOR);
+        assertEquals("kerala.txt", result.getResults().get(0).getSourceFile());
+        assertEquals(4, result.getResults().size());
+    }
+
+    @Test
+    void hnswIndexMatchesTheExactScanOnASmallIndex() {
+        IndexOptions options = new IndexOptions();
+        options.setVectorIndexType(VectorIndexType.HNSW);
+        vectorDB.createIndex("graph", dataDir.toString(), options);
+
+        String query = "Goa beaches and forts";
+        assertEquals(sourceFiles(vectorDB.search("places", query, SearchMode.VECTOR)),
+                     sourceFiles(vectorDB.search("graph", query, SearchMode.VECTOR)));
+    }
+
+    @Test
+    void scoresStayOutOfTheSharedChunkMetadata() {
+        SearchResult result = vectorDB.search("places", "forts markets", SearchMode.KEYWORD);
+
+        // Delhi matches both long words, Goa only "forts"
+        assertEquals(List.of(4f, 2f), result.getHits().stream().map(ScoredHit::getScore).toList());
+        assertTrue(result.getResults().stream().noneMatch(chunk -> chunk.getMetadata().containsKey("relevance_score")));
+    }
+
+    @Test
+    void bm25RanksByTermFrequencyAndLength() {
+        // Goa repeats "beach" in a short chunk; Kerala mentions it once in a longer one
+        assertEquals(List.of("goa.txt", "kerala.txt"), sourceFiles(vectorDB.search("places", "beach", SearchMode.BM25)));
+        // "forts" is in Goa and Delhi, "markets" only in Delhi
+        assertEquals("delhi.txt", sourceFiles(vectorDB.search("places", "forts markets", SearchMode.BM25)).get(0));
+    }
+
+    @Test
+    void filtersRestrictEveryMode() {
+        for (SearchMode mode : List.of(SearchMode.KEYWORD, SearchMode.BM25, SearchMode.VECTOR, SearchMode.LINEAR_SCAN)) {
+            assertEquals(List.of("goa.txt"), sourceFiles(vectorDB.search("places", "forts", mode, "sourceFile=goa.txt")),
+                         mode.name());
+        }
+        assertThrows(IllegalArgumentException.class, () -> vectorDB.search("places", "forts", SearchMode.BM25, "sourceFile="));
+    }
+
+    @Test
+    void hybridFusesReciprocalRanks() {
+        String query = "Goa beaches and forts";
+        // Goa is first in both the BM25 and the vector ranking: 1 / (60 + 1) from each
+        SearchResult both = vectorDB.searchHybrid("places", query, (String) null, 1, 1);
+        assertEquals("goa.txt", both.getResults().get(0).getSourceFile());
+        assertEquals(2.0 / 61, both.getHits().get(0).getScore(), 1e-6);
+        assertTrue(both.getRetrieverTimesMs().keySet().containsAll(List.of("BM25", "VECTOR", "fusion")));
+
+        SearchResult lexicalOnly = vectorDB.searchHybrid("places", query, (String) null, 1, 0);
+        assertEquals(sourceFiles(vectorDB.search("places", query, SearchMode.BM25)), sourceFiles(lexicalOnly));
+        assertFalse(lexicalOnly.getRetrieverTimesMs().containsKey("VECTOR"));
+    }
+
+    @Test
+    void hybridRejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> vectorDB.searchHybrid("places", "goa", (String) null, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> vectorDB.searchHybrid("places", "goa", (String) null, 0, 0));
+    }
+
+    @Test
+    void searchAllMergesIndexesOnNormalizedScores(@TempDir Path otherDir) throws Exception {
+        Files.writeString(otherDir.resolve("chennai.txt"), "Chennai beach at Marina.");
+        Files.writeString(otherDir.resolve("pune.txt"), "Pune forts and hills.");
+        vectorDB.createIndex("cities", otherDir.toString());
+
+        MultiSearchResult result = vectorDB.searchAll(Set.of("places", "cities", "missing"), "beach", 3);
+
+        assertEquals(List.of("cities", "missing", "places"), result.getIndexNames());
+        assertEquals(3, result.getHits().size());
+        // The best hit of each index scores 1 after normalization; name order breaks the tie
+        assertEquals(List.of("cities", "places"),
+                     result.getHits().stream().filter(hit -> hit.getScore() == 1f).map(ScoredHit::getIndexName).toList());
+        assertEquals(List.of("chennai.txt", "goa.txt", "kerala.txt"), sourceFiles(result.getResults()));
+        assertThrows(IllegalArgumentException.class, () -> vectorDB.searchAll(Set.of("places"), "beach", 0));
+    }
+
+    @Test
+    void batchMatchesSingleSearchesOffTheCommonPool() {
+        List<String> queries = List.of("beach", "forts markets", "seaside", "unknown");
+        Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+        for (SearchMode mode : List.of(SearchMode.KEYWORD, SearchMode.BM25, SearchMode.VECTOR)) {
+            SearchResult[] results = new SearchResult[queries.size()];
+            vectorDB.searchBatch("places", queries, mode, (queryIndex, result) -> {
+                pools.add(ForkJoinTask.getPool());
+                results[queryIndex] = result;
+            });
+
+            for (int i = 0; i < queries.size(); i++) {
+                SearchResult single = vectorDB.search("places", queries.get(i), mode);
+                assertEquals(sourceFiles(single), sourceFiles(results[i]), mode + " " + queries.get(i));
+                assertEquals(single.getHits().stream().map(ScoredHit::getScore).toList(),
+                             results[i].getHits().stream().map(ScoredHit::getScore).toList());
+            }
+        }
+        assertEquals(List.of("goa.txt"), sourceFiles(vectorDB.searchBatch("places", List.of("goa")).get(0)));
+        assertFalse(pools.contains(ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void cancelledBatchSkipsTheRemainingQueries() {
+        ReflectionTestUtils.setField(vectorDB, "batchParallelism", 1);
+        List<String> queries = Collections.nCopies(1000, "beach");
+        AtomicInteger delivered = new AtomicInteger();
+        CompletableFuture<CompletableFuture<Void>> batch = new CompletableFuture<>();
+
+        // The first result cancels the batch, as the controller does when the client goes away
+        batch.complete(vectorDB.searchBatchAsync("places", queries, SearchMode.KEYWORD, (queryIndex, result) -> {
+            delivered.incrementAndGet();
+            batch.join().cancel(true);
+        }));
+
+        assertThrows(CancellationException.class, () -> batch.join().join());
+        assertEquals(1, delivered.get());
+    }
+
+    @Test
+    void batchFailsWhenTheConsumerFails() {
+        RuntimeException failure = new IllegalStateException("stop");
+        assertThrows(IllegalStateException.class, () -> vectorDB.searchBatch("places", List.of("beach", "forts"),
+                SearchMode.BM25, (queryIndex, result) -> {
+                    throw failure;
+                }));
+    }
+
+    @Test
+    void cursorPagesThroughTheWholeRanking() {
+        List<String> all = sourceFiles(vectorDB.search("places", "goa kerala mumbai delhi", SearchMode.BM25));
+        assertEquals(4, all.size());
+
+        SearchOptions options = new SearchOptions(3);
+        options.setPaged(true);
+        SearchResult first = vectorDB.search("places", "goa kerala mumbai delhi", SearchMode.BM25, options);
+        assertNotNull(first.getNextCursor());
+
+        List<String> paged = new ArrayList<>(sourceFiles(first));
+        SearchOptions next = new SearchOptions(3);
+        next.setCursor(first.getNextCursor());
+        SearchResult second = vectorDB.search("places", "goa kerala mumbai delhi", SearchMode.BM25, next);
+        paged.addAll(sourceFiles(second));
+
+        assertEquals(3, second.getOffset());
+        assertNull(second.getNextCursor());
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void unpagedSearchReturnsNoCursor() {
+        SearchResult result = vectorDB.search("places", "goa kerala mumbai delhi", SearchMode.BM25, new SearchOptions(1));
+        assertEquals(1, result.getHits().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void rejectsUnknownCursors() {
+        SearchOptions options = new SearchOptions(1);
+        options.setCursor(Base64.getUrlEncoder().encodeToString("missing:1".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> vectorDB.search("places", "goa", SearchMode.BM25, options));
+    }
+    @Test
+    void rejectsForgedCursorOffsets() {
+        SearchOptions options = new SearchOptions(1);
+        options.setPaged(true);
+        String cursor = vectorDB.search("places", "goa kerala", SearchMode.BM25, options).getNextCursor();
+        String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":")[0];
+
+        for (String offset : List.of("-5", "3", "x")) {
+            SearchOptions forged = new SearchOptions(1);
+            forged.setCursor(Base64.getUrlEncoder().encodeToString((id + ":" + offset).getBytes(StandardCharsets.UTF_8)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> vectorDB.search("places", "goa kerala", SearchMode.BM25, forged));
+        }
+    }
+
+    @Test
+    void queryCacheSharesEntriesAcrossAnalyzedQueries() {
+        assertFalse(vectorDB.search("places", "Beaches!", SearchMode.BM25).isCached());
+        // Same analyzed terms: "beach"
+        SearchResult again = vectorDB.search("places", "the beach", SearchMode.BM25);
+        assertTrue(again.isCached());
+        assertEquals(List.of("goa.txt", "kerala.txt"), sourceFiles(again));
+        // Another mode or filter is another entry
+        assertFalse(vectorDB.search("places", "beach", SearchMode.VECTOR).isCached());
+        assertFalse(vectorDB.search("places", "beach", SearchMode.BM25, "sourceFile=goa.txt").isCached());
+
+        Map<String, Object> stats = vectorDB.getQueryCacheStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(3L, stats.get("misses"));
+    }
+
+    @Test
+    void linearScansAreCachedByTheirRawWords() {
+        // Both analyze to "beach", but only "beach" is a substring of Kerala's text
+        assertEquals(List.of("goa.txt", "kerala.txt"), sourceFiles(vectorDB.search("places", "beach", SearchMode.LINEAR_SCAN)));
+        SearchResult plural = vectorDB.search("places", "beaches", SearchMode.LINEAR_SCAN);
+        assertFalse(plural.isCached());
+        assertEquals(List.of("goa.txt"), sourceFiles(plural));
+        // Case is not part of the key; the scan lower-cases the words anyway
+        assertTrue(vectorDB.search("places", "BEACHES", SearchMode.LINEAR_SCAN).isCached());
+    }
+
+    @Test
+    void rebuildingAnIndexInvalidatesItsCachedRankings() throws Exception {
+        vectorDB.search("places", "beach", SearchMode.BM25);
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa casinos and carnival.");
+        vectorDB.createIndex("places", dataDir.toString());
+
+        SearchResult result = vectorDB.search("places", "beach", SearchMode.BM25);
+        assertFalse(result.isCached());
+        assertEquals(List.of("kerala.txt"), sourceFiles(result));
+        assertEquals(1L, vectorDB.getQueryCacheStats().get("invalidations"));
+    }
+}
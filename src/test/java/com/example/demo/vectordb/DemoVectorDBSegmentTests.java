@@ -0,0 +1,110 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.contents;
+import static com.example.demo.vectordb.VectorDBFixtures.newVectorDB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Writes an index to a segment and maps it again in a fresh database.
+ */
+class DemoVectorDBSegmentTests {
+
+    @TempDir
+    Path dataDir;
+
+    @TempDir
+    Path segmentDir;
+
+    private DemoVectorDB vectorDB;
+
+    @BeforeEach
+    void createIndex() throws Exception {
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches beaches beaches and forts.");
+        Files.writeString(dataDir.resolve("kerala.txt"), "Kerala backwaters and a beach at Kovalam with palm trees and houseboats.");
+        Files.writeString(dataDir.resolve("delhi.txt"), "Delhi forts and markets.");
+
+        vectorDB = newVectorDB(segmentDir);
+        vectorDB.createIndex("places", dataDir.toString());
+    }
+
+    @Test
+    void servesTheIndexFromTheMappedSegment() {
+        assertTrue(Files.exists(segmentDir.resolve("places.seg")));
+        assertEquals("mapped", vectorDB.getIndexStats("places").get("storage"));
+    }
+
+    @Test
+    void reloadedSegmentAnswersLikeTheOriginal() {
+        DemoVectorDB reloaded = newVectorDB(segmentDir);
+        ReflectionTestUtils.invokeMethod(reloaded, "loadSegments");
+
+        assertEquals(vectorDB.getIndexNames(), reloaded.getIndexNames());
+        for (SearchMode mode : List.of(SearchMode.KEYWORD, SearchMode.BM25, SearchMode.VECTOR, SearchMode.LINEAR_SCAN)) {
+            assertEquals(contents(vectorDB.search("places", "beach forts", mode)),
+                         contents(reloaded.search("places", "beach forts", mode)), mode.name());
+        }
+        assertEquals(vectorDB.getIndexStats("places").get("totalTerms"), reloaded.getIndexStats("places").get("totalTerms"));
+        assertEquals(vectorDB.getIndexStats("places").get("totalTokens"), reloaded.getIndexStats("places").get("totalTokens"));
+    }
+
+    @Test
+    void keepsOnlyTheChunkLengthsOfTheAnalyzedText() throws IOException {
+        SegmentReader reader = SegmentReader.open(segmentDir.resolve("places.seg"));
+        Map<?, ?> sections = (Map<?, ?>) reader.getHeader().get("sections");
+
+        assertTrue(sections.containsKey("documentLengths"));
+        assertFalse(sections.containsKey("tokens"));
+        InvertedIndex index = reader.readInvertedIndex(Analyzer.standard());
+        assertEquals(3, index.getDocumentCount());
+        assertEquals(vectorDB.getIndexStats("places").get("totalTokens"), index.getTokenCount());
+    }
+
+    @Test
+    void headerRecordsTheSourceAndChunkCount() throws IOException {
+        SegmentReader reader = SegmentReader.open(segmentDir.resolve("places.seg"));
+
+        assertEquals("places", reader.getHeader().get("indexName"));
+        assertEquals(dataDir.toString(), reader.getHeader().get("dataPath"));
+        assertEquals(3, reader.readChunks().size());
+        assertEquals(3, reader.readVectors().size());
+    }
+
+    @Test
+    void llmTokensAreCountedAtBuildAndKeptInTheHeader() throws IOException {
+        long expected = 0;
+        for (String file : List.of("delhi.txt", "goa.txt", "kerala.txt")) {
+            expected += TextChunker.estimateTokens(Files.readString(dataDir.resolve(file)));
+        }
+        assertEquals(expected, ((Number) SegmentReader.open(segmentDir.resolve("places.seg")).getHeader()
+                .get("llmTokens")).longValue());
+
+        DemoVectorDB reloaded = newVectorDB(segmentDir);
+        ReflectionTestUtils.invokeMethod(reloaded, "loadSegments");
+        assertEquals(expected, reloaded.getIndexStats("places").get("llmTokens"));
+    }
+
+    @Test
+    void skipsUnreadableSegments() throws IOException {
+        Files.writeString(segmentDir.resolve("broken.seg"), "not a segment at all, just some text");
+        assertThrows(IOException.class, () -> SegmentReader.open(segmentDir.resolve("broken.seg")));
+
+        DemoVectorDB reloaded = newVectorDB(segmentDir);
+        ReflectionTestUtils.invokeMethod(reloaded, "loadSegments");
+        assertEquals(vectorDB.getIndexNames(), reloaded.getIndexNames());
+        assertFalse(reloaded.getIndexNames().contains("broken"));
+    }
+}
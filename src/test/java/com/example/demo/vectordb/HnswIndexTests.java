@@ -0,0 +1,85 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.DIMENSION;
+import static com.example.demo.vectordb.VectorDBFixtures.randomVector;
+import static com.example.demo.vectordb.VectorDBFixtures.randomVectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+/**
+ * Compares HNSW search against the exact scan on random vectors.
+ */
+class HnswIndexTests {
+
+    @Test
+    void recallAgainstExactSearch() {
+        VectorStore vectors = randomVectors(2000, 7);
+        HnswIndex hnsw = new HnswIndex(vectors, 16, 100, 64);
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            hnsw.insert(ordinal);
+        }
+        assertEquals(vectors.size(), hnsw.size());
+
+        // Queries that are not stored rows, so none trivially finds itself
+        Random random = new Random(13);
+        long found = 0;
+        for (int i = 0; i < 100; i++) {
+            float[] query = randomVector(random, DIMENSION);
+            VectorKernels.normalize(query);
+            int[] exact = vectors.topK(query, 10).drain(null);
+            int[] approximate = hnsw.search(query, 10).drain(null);
+            found += Arrays.stream(approximate).filter(hit -> Arrays.stream(exact).anyMatch(e -> e == hit)).count();
+        }
+        double recall = found / 1000.0;
+        assertTrue(recall >= 0.9, "recall " + recall);
+    }
+
+    @Test
+    void filteredSearchOnlyReturnsAllowedOrdinals() {
+        VectorStore vectors = randomVectors(500, 11);
+        HnswIndex hnsw = new HnswIndex(vectors, 8, 64, 64);
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            hnsw.insert(ordinal);
+        }
+        MutableRoaringBitmap even = new MutableRoaringBitmap();
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal += 2) {
+            even.add(ordinal);
+        }
+
+        int[] hits = hnsw.search(vectors.get(3), 10, 64, even).drain(null);
+        assertEquals(10, hits.length);
+        for (int hit : hits) {
+            assertEquals(0, hit % 2);
+        }
+    }
+
+    @Test
+    void smallGraphsAreExact() {
+        VectorStore vectors = randomVectors(50, 3);
+        HnswIndex hnsw = new HnswIndex(vectors, 8, 64, 64);
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            hnsw.insert(ordinal);
+        }
+        float[] query = vectors.get(17);
+
+        assertEquals(Arrays.toString(vectors.topK(query, 5).drain(null)), Arrays.toString(hnsw.search(query, 5).drain(null)));
+    }
+
+    @Test
+    void recallEstimatorDoesNotCountTheQueryItself() {
+        VectorStore vectors = randomVectors(300, 3);
+        // A search that only ever finds the nearest row, i.e. the query's own source
+        Map<String, Object> selfOnly = RecallEstimator.measure(vectors, (query, k) -> vectors.topK(query, 1), 10, 20);
+        assertEquals(0.0, selfOnly.get("recall"));
+
+        Map<String, Object> exact = RecallEstimator.measure(vectors, vectors::topK, 10, 20);
+        assertEquals(1.0, exact.get("recall"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.chunk;
+import static com.example.demo.vectordb.VectorDBFixtures.newVectorDB;
+import static com.example.demo.vectordb.VectorDBFixtures.sourceFiles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IndexShardTests {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000);
+        for (int key = 0; key < 10_000; key++) {
+            filter.add(key * 2);
+        }
+
+        int falsePositives = 0;
+        for (int key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain(key * 2));
+            if (filter.mightContain(key * 2 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, falsePositives + " false positives");
+    }
+
+    @Test
+    void splitCoversEveryOrdinalOnceAndRecordsShardTerms() {
+        List<DocumentChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            chunks.add(chunk(i, i < 5 ? "mumbai flights" : "delhi hotels"));
+        }
+        InvertedIndex index = InvertedIndex.build(chunks);
+
+        List<IndexShard> shards = IndexShard.split(index, 2);
+
+        assertEquals(2, shards.size());
+        assertEquals(0, shards.get(0).getStart());
+        assertEquals(shards.get(0).getEnd(), shards.get(1).getStart());
+        assertEquals(10, shards.get(1).getEnd());
+        int[] mumbai = { index.getTermId("mumbai") };
+        assertTrue(shards.get(0).mightContainAny(mumbai));
+        assertFalse(shards.get(1).mightContainAny(mumbai));
+        assertEquals(1, IndexShard.split(index, 1).size());
+    }
+
+    @Test
+    void shardedSearchMatchesUnshardedAndSkipsShards() throws Exception {
+        Files.writeString(dataDir.resolve("delhi.txt"), "Delhi forts and markets.");
+        Files.writeString(dataDir.resolve("goa.txt"), "Goa beaches and forts.");
+        Files.writeString(dataDir.resolve("kerala.txt"), "Kerala backwaters and a beach at Kovalam.");
+        Files.writeString(dataDir.resolve("mumbai.txt"), "Mumbai seaside promenade.");
+
+        DemoVectorDB vectorDB = newVectorDB();
+        vectorDB.createIndex("single", dataDir.toString());
+        IndexOptions options = new IndexOptions();
+        options.setShardCount(4);
+        vectorDB.createIndex("sharded", dataDir.toString(), options);
+
+        for (SearchMode mode : List.of(SearchMode.BM25, SearchMode.KEYWORD, SearchMode.VECTOR, SearchMode.LINEAR_SCAN)) {
+            assertEquals(sourceFiles(vectorDB.search("single", "beach forts", mode)),
+                         sourceFiles(vectorDB.search("sharded", "beach forts", mode)), mode.name());
+        }
+
+        vectorDB.search("sharded", "markets", SearchMode.BM25);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> shards = (Map<String, Object>) vectorDB.getIndexStats("sharded").get("shards");
+        assertEquals(4, shards.get("count"));
+        // "markets" only occurs in the Delhi shard
+        assertTrue(((Number) shards.get("skipped")).longValue() >= 3, shards.toString());
+    }
+}
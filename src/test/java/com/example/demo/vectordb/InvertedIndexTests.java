@@ -0,0 +1,66 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.chunk;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+class InvertedIndexTests {
+
+    private final InvertedIndex index = InvertedIndex.build(List.of(
+            chunk(0, "beach beach beach"),
+            chunk(1, "a long text about forts, palaces and one beach near the old town"),
+            chunk(2, "forts and markets"),
+            chunk(3, "markets")));
+
+    @Test
+    void postingsHoldEveryChunkWithTheTerm() {
+        assertArrayEquals(new int[] {0, 1}, index.getPostings("beach"));
+        assertArrayEquals(new int[] {1, 2}, index.getPostings("fort"));
+        assertArrayEquals(new int[0], index.getPostings("missing"));
+        assertEquals(2, index.getDocumentFrequency(index.getTermId("market")));
+    }
+
+    @Test
+    void bm25MatchesTheFormula() {
+        int termId = index.getTermId("beach");
+        ScoreAccumulator scores = new ScoreAccumulator();
+        scores.reset(index.getDocumentCount());
+        index.scoreBm25(termId, scores);
+        float[] ranked = new float[2];
+        int[] ordinals = scores.topK(10).drain(ranked);
+
+        double idf = Math.log(1 + (4 - 2 + 0.5) / (2 + 0.5));
+        assertArrayEquals(new int[] {0, 1}, ordinals);
+        assertEquals(bm25(idf, 3, index.getDocumentLength(0)), ranked[0], 1e-5);
+        assertEquals(bm25(idf, 1, index.getDocumentLength(1)), ranked[1], 1e-5);
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        // "palace" is in one chunk, "fort" in two: a match on the rarer term ranks higher
+        ScoreAccumulator scores = new ScoreAccumulator();
+        scores.reset(index.getDocumentCount());
+        index.scoreBm25(index.getTermId("fort"), scores);
+        index.scoreBm25(index.getTermId("palace"), scores);
+        assertEquals(1, scores.topK(1).drain(null)[0]);
+    }
+
+    @Test
+    void filterRestrictsScoredChunks() {
+        ScoreAccumulator scores = new ScoreAccumulator();
+        scores.reset(index.getDocumentCount());
+        index.scoreBm25(index.getTermId("beach"), scores, MutableRoaringBitmap.bitmapOf(1, 3));
+        assertArrayEquals(new int[] {1}, scores.topK(10).drain(null));
+    }
+
+    private double bm25(double idf, int frequency, int length) {
+        double norm = InvertedIndex.BM25_K1
+                * (1 - InvertedIndex.BM25_B + InvertedIndex.BM25_B * length / index.getAverageDocumentLength());
+        return idf * frequency * (InvertedIndex.BM25_K1 + 1) / (frequency + norm);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.vectordb;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MetadataFilterTests {
+
+    private final MetadataIndex index = MetadataIndex.build(List.of(
+            chunk(0, "flights.json", "flights", "Mumbai"),
+            chunk(1, "flights.json", "flights", "Delhi"),
+            chunk(2, "hotels.json", "hotels", "Mumbai"),
+            chunk(3, "guide.txt", "guides", "Goa")));
+
+    @Test
+    void comparesFieldsAndMetadata() {
+        assertArrayEquals(new int[] { 0, 1, 2 }, matches("documentType=json"));
+        assertArrayEquals(new int[] { 3 }, matches("sourceFile=guide.txt"));
+        assertArrayEquals(new int[] { 0, 2 }, matches("city=Mumbai"));
+        assertArrayEquals(new int[] { 2, 3 }, matches("sourceFile != flights.json"));
+    }
+
+    @Test
+    void appliesPrecedenceAndParentheses() {
+        // AND binds tighter than OR
+        assertArrayEquals(new int[] { 0, 3 }, matches("category=flights AND city=Mumbai OR city=Goa"));
+        assertArrayEquals(new int[] { 0 }, matches("category=flights AND (city=Mumbai OR city=Goa)"));
+        assertArrayEquals(new int[] { 2, 3 }, matches("NOT category=flights"));
+        assertArrayEquals(new int[] { 3 }, matches("not documentType=json and not city=Delhi"));
+    }
+
+    @Test
+    void quotedValuesAreNotOperators() {
+        MetadataIndex quoted = MetadataIndex.build(List.of(
+                chunk(0, "a.txt", "and", "New Delhi"),
+                chunk(1, "b.txt", "or", "Delhi")));
+
+        assertArrayEquals(new int[] { 0 }, MetadataFilter.parse("category='and'").evaluate(quoted).toArray());
+        assertArrayEquals(new int[] { 0 }, MetadataFilter.parse("city=\"New Delhi\"").evaluate(quoted).toArray());
+    }
+
+    @Test
+    void unknownFieldsAndValuesMatchNothing() {
+        assertArrayEquals(new int[0], matches("airline=Indigo"));
+        assertArrayEquals(new int[0], matches("city=Chennai"));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        for (String expression : List.of("city", "city=", "city=Mumbai AND", "(city=Mumbai", "city=Mumbai)",
+                                          "city='Mumbai", "city=Mumbai city=Delhi", "= Mumbai")) {
+            assertThrows(IllegalArgumentException.class, () -> MetadataFilter.parse(expression), expression);
+        }
+    }
+
+    private int[] matches(String expression) {
+        return MetadataFilter.parse(expression).evaluate(index).toArray();
+    }
+
+    private static DocumentChunk chunk(int ordinal, String sourceFile, String category, String city) {
+        return VectorDBFixtures.chunk(ordinal, "content " + ordinal, sourceFile, Map.of("category", category, "city", city));
+    }
+}
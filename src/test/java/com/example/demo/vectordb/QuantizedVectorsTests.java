@@ -0,0 +1,53 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.DIMENSION;
+import static com.example.demo.vectordb.VectorDBFixtures.randomVectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Recall and size of int8 and product quantization against the exact scan.
+ */
+class QuantizedVectorsTests {
+
+    private final VectorStore vectors = randomVectors(1000, 5);
+
+    @Test
+    void int8CodesKeepRecallAtAQuarterOfTheSize() {
+        ScalarQuantizer int8 = ScalarQuantizer.train(vectors);
+
+        assertEquals(vectors.size(), int8.size());
+        assertEquals((long) vectors.size() * DIMENSION, int8.getCodeBytes());
+        assertTrue(recall(int8::topK) >= 0.8, "recall " + recall(int8::topK));
+    }
+
+    @Test
+    void pqCodesFindCandidatesForRescoring() {
+        ProductQuantizer pq = ProductQuantizer.train(vectors, 8);
+
+        assertEquals(vectors.size(), pq.size());
+        assertEquals((long) vectors.size() * 8, pq.getCodeBytes());
+        // Codes alone are coarse; rescoring a wider candidate list recovers the exact order
+        RecallEstimator.ApproximateSearch rescored = (query, k) -> {
+            TopK top = new TopK(k);
+            for (int ordinal : pq.topK(query, k * 10).drain(null)) {
+                top.offer(ordinal, vectors.score(ordinal, query));
+            }
+            return top;
+        };
+        assertTrue(recall(pq::topK) >= 0.5, "recall " + recall(pq::topK));
+        assertTrue(recall(rescored) >= 0.8, "recall " + recall(rescored));
+    }
+
+    @Test
+    void pqRejectsSubspacesThatDoNotDivideTheDimension() {
+        assertThrows(IllegalArgumentException.class, () -> ProductQuantizer.train(vectors, 5));
+    }
+
+    private double recall(RecallEstimator.ApproximateSearch search) {
+        return (double) RecallEstimator.measure(vectors, search, 10, 50).get("recall");
+    }
+}
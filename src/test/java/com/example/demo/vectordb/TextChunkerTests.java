@@ -0,0 +1,87 @@
+package com.example.demo.vectordb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TextChunkerTests {
+
+    private static final String TEXT = "Goa has beaches. Kerala has backwaters. Delhi has forts and markets. " +
+                                       "Mumbai has a seaside promenade. Jaipur has palaces.";
+
+    @Test
+    void estimatesTokensPerWordDigitsAndPunctuation() {
+        assertEquals(3, TextChunker.estimateTokens("Hello world."));
+        // 20 letters: one token per six letters after the first
+        assertEquals(4, TextChunker.estimateTokens("internationalization"));
+        assertEquals(2, TextChunker.estimateTokens("2024"));
+        assertEquals(0, TextChunker.estimateTokens("  "));
+    }
+
+    @Test
+    void fixedWindowsOverlap() {
+        TextChunker chunker = new TextChunker(ChunkingStrategy.FIXED, 2, 1);
+        assertEquals(List.of("abcdefgh", "efghijkl", "ijklmnop"), chunker.chunk("abcdefghijklmnop"));
+    }
+
+    @Test
+    void structuredChunksKeepWholeSentencesWithinTheBudget() {
+        TextChunker chunker = new TextChunker(ChunkingStrategy.STRUCTURED, 12, 0);
+        List<String> chunks = chunker.chunk(TEXT);
+
+        assertTrue(chunks.size() > 1, chunks.toString());
+        for (String chunk : chunks) {
+            assertTrue(TextChunker.estimateTokens(chunk) <= 12, chunk);
+            assertTrue(chunk.strip().endsWith("."), chunk);
+        }
+        assertEquals(TEXT.replace(" ", ""), String.join("", chunks).replace(" ", ""));
+    }
+
+    @Test
+    void structuredOverlapRepeatsTheLastSentence() {
+        assertEquals(List.of("Goa has beaches. Kerala has backwaters.",
+                             "Kerala has backwaters. Delhi has forts and markets."),
+                     new TextChunker(ChunkingStrategy.STRUCTURED, 12, 6).chunk(TEXT).subList(0, 2).stream()
+                             .map(String::strip).toList());
+        assertEquals("Delhi has forts and markets.",
+                     new TextChunker(ChunkingStrategy.STRUCTURED, 12, 0).chunk(TEXT).get(1).strip());
+    }
+
+    @Test
+    void streamingGivesTheSameChunks() throws Exception {
+        TextChunker chunker = new TextChunker(ChunkingStrategy.STRUCTURED, 12, 4);
+        String text = (TEXT + "\n").repeat(500);
+        List<String> streamed = new ArrayList<>();
+        chunker.chunk(new StringReader(text), streamed::add);
+        assertEquals(chunker.chunk(text), streamed);
+    }
+
+    @Test
+    void largeJsonIsSplitIntoValidSmallerObjects() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode flight = mapper.readTree("{\"flight\":\"AI202\",\"from\":\"Mumbai\",\"to\":\"Delhi\"," +
+                                          "\"airline\":\"Air India\",\"departure\":\"10:30\",\"arrival\":\"12:45\"}");
+        List<String> chunks = new TextChunker(ChunkingStrategy.STRUCTURED, 12, 0).chunkJson(flight);
+
+        assertTrue(chunks.size() > 1, chunks.toString());
+        int fields = 0;
+        for (String chunk : chunks) {
+            fields += mapper.readTree(chunk).size();
+        }
+        assertEquals(flight.size(), fields);
+    }
+
+    @Test
+    void rejectsEmptyBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(ChunkingStrategy.FIXED, 0, 0));
+    }
+}
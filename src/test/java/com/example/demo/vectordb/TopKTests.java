@@ -0,0 +1,54 @@
+package com.example.demo.vectordb;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TopKTests {
+
+    @Test
+    void keepsTheBestScoresBestFirst() {
+        Random random = new Random(42);
+        float[] all = new float[1000];
+        TopK topK = new TopK(10);
+        for (int ordinal = 0; ordinal < all.length; ordinal++) {
+            all[ordinal] = random.nextFloat();
+            topK.offer(ordinal, all[ordinal]);
+        }
+
+        int[] expected = IntStream.range(0, all.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer ordinal) -> all[ordinal]).reversed())
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        float[] scores = new float[10];
+        assertArrayEquals(expected, topK.drain(scores));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(all[expected[i]], scores[i]);
+        }
+    }
+
+    @Test
+    void lowerOrdinalWinsTies() {
+        TopK topK = new TopK(2);
+        topK.offer(7, 1f);
+        topK.offer(3, 1f);
+        topK.offer(5, 1f);
+        assertArrayEquals(new int[] {3, 5}, topK.drain(null));
+    }
+
+    @Test
+    void holdsFewerThanK() {
+        TopK topK = new TopK(5);
+        topK.offer(1, 0.5f);
+        topK.offer(2, 0.9f);
+        assertEquals(Float.NEGATIVE_INFINITY, topK.minScore());
+        assertArrayEquals(new int[] {2, 1}, topK.drain(null));
+        assertEquals(0, new TopK(0).drain(null).length);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.vectordb;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Chunks, vectors and databases shared by the vectordb tests.
+ */
+final class VectorDBFixtures {
+
+    static final int DIMENSION = 32;
+
+    private VectorDBFixtures() {
+    }
+
+    /**
+     * A database that keeps its indexes on the heap, without segments
+     */
+    static DemoVectorDB newVectorDB() {
+        DemoVectorDB vectorDB = new DemoVectorDB();
+        ReflectionTestUtils.setField(vectorDB, "segmentsEnabled", false);
+        return vectorDB;
+    }
+
+    /**
+     * A database that writes its indexes to segments in {@code segmentDir} and serves them mapped
+     */
+    static DemoVectorDB newVectorDB(Path segmentDir) {
+        DemoVectorDB vectorDB = new DemoVectorDB();
+        ReflectionTestUtils.setField(vectorDB, "segmentDir", segmentDir.toString());
+        return vectorDB;
+    }
+
+    static DocumentChunk chunk(int ordinal, String content) {
+        return chunk(ordinal, content, "test.txt", Map.of());
+    }
+
+    /**
+     * A chunk with id {@code chunk-<ordinal>}, typed json or document by its file extension
+     */
+    static DocumentChunk chunk(int ordinal, String content, String sourceFile, Map<String, Object> metadata) {
+        DocumentChunk chunk = new DocumentChunk("chunk-" + ordinal, content, sourceFile, ordinal,
+                                                sourceFile.endsWith(".json") ? "json" : "document");
+        metadata.forEach(chunk::addMetadata);
+        return chunk;
+    }
+
+    /**
+     * The chunks of an index as it is currently served
+     */
+    @SuppressWarnings("unchecked")
+    static List<DocumentChunk> chunks(DemoVectorDB vectorDB, String indexName) {
+        return ((Map<String, IndexSnapshot>) ReflectionTestUtils.getField(vectorDB, "indexes")).get(indexName).getChunks();
+    }
+
+    static List<String> sourceFiles(SearchResult result) {
+        return sourceFiles(result.getResults());
+    }
+
+    static List<String> sourceFiles(List<DocumentChunk> chunks) {
+        return chunks.stream().map(DocumentChunk::getSourceFile).toList();
+    }
+
+    static List<String> contents(SearchResult result) {
+        return result.getResults().stream().map(DocumentChunk::getContent).toList();
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * Gaussian random vectors of {@link #DIMENSION} dimensions
+     */
+    static VectorStore randomVectors(int rows, long seed) {
+        Random random = new Random(seed);
+        VectorStore vectors = new VectorStore(DIMENSION, rows);
+        for (int i = 0; i < rows; i++) {
+            vectors.add(randomVector(random, DIMENSION));
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.vectordb;
+
+import static com.example.demo.vectordb.VectorDBFixtures.randomVector;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class VectorStoreTests {
+
+    @Test
+    void kernelsRunWithTheVectorModule() {
+        // Surefire adds jdk.incubator.vector, as the application does
+        assertTrue(VectorKernels.isSimdAvailable(), VectorKernels.describe());
+    }
+
+    @Test
+    void dotMatchesAPlainLoopForEveryTailLength() {
+        Random random = new Random(42);
+        for (int length = 1; length <= 70; length++) {
+            float[] matrix = randomVector(random, length + 3);
+            float[] query = randomVector(random, length);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(matrix.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asFloatBuffer().put(matrix);
+
+            double expected = 0;
+            for (int i = 0; i < length; i++) {
+                expected += matrix[3 + i] * query[i];
+            }
+            assertEquals(expected, VectorKernels.dot(matrix, 3, query, length), 1e-4, "length " + length);
+            assertEquals(expected, VectorKernels.dot(buffer, 3 * Float.BYTES, query, length), 1e-4, "length " + length);
+        }
+    }
+
+    @Test
+    void normalizeScalesToUnitLength() {
+        float[] vector = {3, 4};
+        VectorKernels.normalize(vector);
+        assertArrayEquals(new float[] {0.6f, 0.8f}, vector, 1e-6f);
+
+        float[] zero = new float[4];
+        VectorKernels.normalize(zero);
+        assertArrayEquals(new float[4], zero);
+    }
+
+    @Test
+    void topKMatchesBruteForceOnAndOffHeap() {
+        Random random = new Random(7);
+        int dimension = 37;
+        VectorStore heap = new VectorStore(dimension, 16);
+        VectorStore offHeap = new VectorStore(dimension, 16, true);
+        for (int i = 0; i < 500; i++) {
+            float[] vector = randomVector(random, dimension);
+            assertEquals(i, heap.add(vector));
+            offHeap.add(vector);
+        }
+        float[] query = randomVector(random, dimension);
+
+        int[] expected = IntStream.range(0, heap.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer ordinal) -> heap.score(ordinal, query)).reversed())
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, heap.topK(query, 10).drain(new float[10]));
+        assertArrayEquals(expected, offHeap.topK(query, 10).drain(new float[10]));
+        assertTrue(offHeap.isOffHeap());
+        assertArrayEquals(heap.get(42), offHeap.get(42));
+        assertThrows(IllegalArgumentException.class, () -> heap.add(new float[dimension + 1]));
+    }
+}